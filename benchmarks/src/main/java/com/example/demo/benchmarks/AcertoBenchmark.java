@@ -0,0 +1,69 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.repository.TotalPorPar;
+import com.example.demo.service.AcertoGrupoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plano de acerto de grupo (AcertoGrupoService): posições líquidas a partir dos totais
+ * por par devedor/credor e casamento guloso com heaps.
+ * O pior caso do banco é um total por par; 100k pares cobrem grupos de alguns milhares de membros.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AcertoBenchmark {
+    
+    @Param({"100", "3000"})
+    public int membros;
+    
+    @Param({"100000"})
+    public int pares;
+    
+    private List<TotalPorPar> totais;
+    private Map<Long, Long> posicoes;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        totais = new ArrayList<>(pares);
+        for (int i = 0; i < pares; i++) {
+            long devedor = random.nextInt(membros) + 1;
+            long credor = random.nextInt(membros) + 1;
+            if (devedor == credor) {
+                credor = credor % membros + 1;
+            }
+            totais.add(total(devedor, credor, BigDecimal.valueOf(random.nextInt(100_000) + 1, 2)));
+        }
+        posicoes = AcertoGrupoService.posicoesLiquidas(totais);
+    }
+    
+    @Benchmark
+    public List<AcertoGrupoService.Transferencia> planejar() {
+        return AcertoGrupoService.planejar(posicoes);
+    }
+    
+    @Benchmark
+    public List<AcertoGrupoService.Transferencia> posicoesEPlano() {
+        return AcertoGrupoService.planejar(AcertoGrupoService.posicoesLiquidas(totais));
+    }
+    
+    private static TotalPorPar total(Long devedorId, Long credorId, BigDecimal valor) {
+        return new TotalPorPar() {
+            public Long getDevedorId() { return devedorId; }
+            public Long getCredorId() { return credorId; }
+            public BigDecimal getTotal() { return valor; }
+            public Long getQuantidade() { return 1L; }
+        };
+    }
+}
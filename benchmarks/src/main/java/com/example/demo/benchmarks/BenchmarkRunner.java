@@ -0,0 +1,36 @@
+package com.example.demo.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Ponto de entrada do jar de benchmarks.
+ * Aceita os mesmos argumentos do JMH (ex.: "Jwt" para filtrar, "-f 1", "-wi 2");
+ * por padrão grava o resultado em JSON em resultados/jmh-&lt;data&gt;.json para comparar entre versões.
+ */
+public class BenchmarkRunner {
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions linhaDeComando = new CommandLineOptions(args);
+        ChainedOptionsBuilder opcoes = new OptionsBuilder().parent(linhaDeComando);
+        
+        boolean arquivoInformado = Arrays.asList(args).contains("-rff");
+        if (!arquivoInformado) {
+            File pasta = new File("resultados");
+            pasta.mkdirs();
+            String data = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            opcoes.resultFormat(ResultFormatType.JSON)
+                  .result(new File(pasta, "jmh-" + data + ".json").getPath());
+        }
+        
+        new Runner(opcoes.build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.model.Dinheiro;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigDecimal x centavos em long nas somas e rateios feitos em laço
+ * (itens de compra, saldos por contato, divisões).
+ * Rodar com "-prof gc" para comparar também a alocação por operação (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DinheiroBenchmark {
+    
+    @Param({"10", "1000"})
+    public int linhas;
+    
+    private List<BigDecimal> valores;
+    private long[] centavos;
+    private BigDecimal total;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        valores = new ArrayList<>(linhas);
+        centavos = new long[linhas];
+        for (int i = 0; i < linhas; i++) {
+            long valor = random.nextInt(1_000_000) + 1;
+            valores.add(BigDecimal.valueOf(valor, 2));
+            centavos[i] = valor;
+        }
+        total = new BigDecimal("1234.57");
+    }
+    
+    @Benchmark
+    public BigDecimal somaBigDecimal() {
+        return valores.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+    
+    @Benchmark
+    public long somaCentavos() {
+        long soma = 0;
+        for (long valor : centavos) {
+            soma += valor;
+        }
+        return soma;
+    }
+    
+    // Conversão na borda: BigDecimal da entidade -> centavos -> soma
+    @Benchmark
+    public long somaCentavosDeBigDecimal() {
+        return Dinheiro.somarCentavos(valores);
+    }
+    
+    // Rateio antigo: divide com HALF_UP (a soma das partes pode não fechar com o total)
+    @Benchmark
+    public BigDecimal[] rateioBigDecimal() {
+        BigDecimal parte = total.divide(BigDecimal.valueOf(linhas), 2, RoundingMode.HALF_UP);
+        BigDecimal[] partes = new BigDecimal[linhas];
+        for (int i = 0; i < linhas; i++) {
+            partes[i] = parte;
+        }
+        return partes;
+    }
+    
+    @Benchmark
+    public long[] rateioCentavos() {
+        return Dinheiro.alocar(123_457L, linhas);
+    }
+}
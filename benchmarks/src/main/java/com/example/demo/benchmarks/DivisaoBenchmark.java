@@ -0,0 +1,61 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.service.CalculadoraDivisao;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo das divisões (igual, por porcentagem e por valores explícitos)
+ * usado pelo DivisaoService, sem o custo de banco.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DivisaoBenchmark {
+    
+    @Param({"3", "12", "50"})
+    public int partes;
+    
+    private BigDecimal valorTotal;
+    private List<BigDecimal> percentuais;
+    private List<BigDecimal> valoresExplicitos;
+    
+    @Setup
+    public void setup() {
+        valorTotal = new BigDecimal("1234.57");
+        
+        percentuais = new ArrayList<>(partes);
+        BigDecimal restante = BigDecimal.ONE;
+        BigDecimal parte = BigDecimal.ONE.divide(BigDecimal.valueOf(partes), 4, RoundingMode.DOWN);
+        for (int i = 0; i < partes - 1; i++) {
+            percentuais.add(parte);
+            restante = restante.subtract(parte);
+        }
+        percentuais.add(restante);
+        
+        valoresExplicitos = CalculadoraDivisao.valoresPorPercentual(valorTotal, percentuais);
+    }
+    
+    @Benchmark
+    public List<BigDecimal> igual() {
+        return CalculadoraDivisao.valoresIguais(valorTotal, partes);
+    }
+    
+    @Benchmark
+    public List<BigDecimal> porcentagem() {
+        return CalculadoraDivisao.valoresPorPercentual(valorTotal, percentuais);
+    }
+    
+    @Benchmark
+    public boolean explicita() {
+        return CalculadoraDivisao.somaConfere(valorTotal, valoresExplicitos);
+    }
+}
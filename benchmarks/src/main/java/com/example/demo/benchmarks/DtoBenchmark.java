@@ -0,0 +1,78 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dto.CompraDTO;
+import com.example.demo.dto.NotificacaoDTO;
+import com.example.demo.model.Compra;
+import com.example.demo.model.ItemCompra;
+import com.example.demo.model.Notificacao;
+import com.example.demo.model.PrioridadeNotificacao;
+import com.example.demo.model.TipoNotificacao;
+import com.example.demo.model.Usuario;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversões de entidade para DTO nas listagens mais usadas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoBenchmark {
+    
+    @Param({"20"})
+    public int itensPorCompra;
+    
+    private Notificacao notificacao;
+    private Compra compra;
+    
+    @Setup
+    public void setup() {
+        Usuario usuario = Usuario.builder().id(1L).nome("Ana").email("ana@exemplo.com").chavePix("ana@pix").build();
+        
+        notificacao = Notificacao.builder()
+                .id(10L)
+                .usuario(usuario)
+                .titulo("Conta próxima do vencimento")
+                .mensagem("A conta Aluguel vence amanhã")
+                .tipo(TipoNotificacao.CONTA_VENCENDO)
+                .prioridade(PrioridadeNotificacao.ALTA)
+                .dataCriacao(LocalDateTime.now())
+                .dataExpiracao(LocalDateTime.now().plusDays(30))
+                .referenciaId(5L)
+                .referenciaTipo("CONTA")
+                .build();
+        
+        compra = Compra.builder().id(7L).descricao("Mercado").usuarioCriador(usuario).build();
+        List<ItemCompra> itens = new ArrayList<>(itensPorCompra);
+        for (int i = 0; i < itensPorCompra; i++) {
+            Usuario responsavel = Usuario.builder().id(i + 2L).nome("Pessoa " + i).email("p" + i + "@exemplo.com").build();
+            itens.add(ItemCompra.builder()
+                    .id((long) i)
+                    .descricao("Item " + i)
+                    .valor(BigDecimal.valueOf(1_000 + i * 37L, 2))
+                    .quantidade(1 + i % 3)
+                    .compra(compra)
+                    .usuarioResponsavel(responsavel)
+                    .build());
+        }
+        compra.setItens(itens);
+    }
+    
+    @Benchmark
+    public NotificacaoDTO notificacaoFromModel() {
+        return NotificacaoDTO.fromModel(notificacao);
+    }
+    
+    @Benchmark
+    public CompraDTO compraFromModel() {
+        return CompraDTO.fromModel(compra);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.service.JwtKeyRing;
+import com.example.demo.service.JwtService;
+import com.example.demo.service.RevogacaoTokenService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emissão e verificação de tokens. Com cache = 0 toda validação refaz o parse
+ * e a verificação HMAC; com cache ligado mede o caminho do filtro de autenticação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+    
+    private static final String SEGREDO = "quantotedevo-muito-segura-secret-key-para-desenvolvimento-com-tamanho-adequado";
+    
+    @Param({"0", "10000"})
+    public int cacheEntradas;
+    
+    private JwtService jwtService;
+    private String token;
+    
+    @Setup
+    public void setup() {
+        JwtKeyRing keyRing = new JwtKeyRing("v1", SEGREDO, "", 86_400_000L);
+        // Sem repositório: o benchmark não chama carregar()/revogar(), só a consulta em memória
+        RevogacaoTokenService revogacao = new RevogacaoTokenService(null, 100_000);
+        jwtService = new JwtService(keyRing, revogacao, 86_400_000L, cacheEntradas);
+        token = jwtService.generateToken(42L, "usuario42@exemplo.com");
+    }
+    
+    @Benchmark
+    public String gerarToken() {
+        return jwtService.generateToken(42L, "usuario42@exemplo.com");
+    }
+    
+    @Benchmark
+    public Object validarToken() {
+        return jwtService.validarToken(token);
+    }
+}
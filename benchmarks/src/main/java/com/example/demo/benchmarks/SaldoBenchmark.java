@@ -0,0 +1,58 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dto.SaldoContatoDTO;
+import com.example.demo.dto.UsuarioDTO;
+import com.example.demo.model.SaldoPar;
+import com.example.demo.service.UsuarioService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consolidação dos saldos por contato (UsuarioService.calcularSaldosUsuario).
+ * Os saldos vêm prontos do livro saldo_par, uma linha por contato.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaldoBenchmark {
+    
+    private static final Long USUARIO_ID = 1L;
+    
+    @Param({"50", "5000"})
+    public int contatos;
+    
+    private List<SaldoPar> pares;
+    private Map<Long, UsuarioDTO> nomes;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        pares = new ArrayList<>(contatos);
+        nomes = new HashMap<>();
+        
+        for (long id = 2; id < contatos + 2; id++) {
+            nomes.put(id, UsuarioDTO.builder().id(id).nome("Usuário " + id).email("usuario" + id + "@exemplo.com").build());
+            pares.add(SaldoPar.builder()
+                .usuarioAId(USUARIO_ID)
+                .usuarioBId(id)
+                .valor(BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, 2))
+                .abertas(random.nextInt(20) + 1)
+                .build());
+        }
+    }
+    
+    @Benchmark
+    public List<SaldoContatoDTO> consolidarSaldosContatos() {
+        return UsuarioService.consolidarSaldosContatos(USUARIO_ID, pares, nomes);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Coloca a contagem de SQL no cabeçalho antes do corpo ser escrito
+ * (depois disso a resposta já foi enviada e o filtro não consegue mais adicionar cabeçalhos).
+ */
+@ControllerAdvice
+public class CabecalhoSqlAdvice implements ResponseBodyAdvice<Object> {
+    
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+    
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        int total = ContadorSql.total();
+        if (total >= 0) {
+            response.getHeaders().set(OrcamentoSqlFilter.CABECALHO, String.valueOf(total));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta as instruções SQL preparadas pelo Hibernate na thread atual.
+ * Registrado em hibernate.session_factory.statement_inspector; a contagem só acontece
+ * entre iniciar() e encerrar() (OrcamentoSqlFilter faz isso por requisição HTTP e
+ * ContagemSqlAssincrona nos corpos em streaming).
+ */
+public class ContadorSql implements StatementInspector {
+    
+    private static final ThreadLocal<int[]> CONTADOR = new ThreadLocal<>();
+    
+    @Override
+    public String inspect(String sql) {
+        int[] contador = CONTADOR.get();
+        if (contador != null) {
+            contador[0]++;
+        }
+        return sql;
+    }
+    
+    /**
+     * Instrução enviada fora do Hibernate (lote JDBC): conta como uma ida ao banco.
+     */
+    public static void registrar() {
+        int[] contador = CONTADOR.get();
+        if (contador != null) {
+            contador[0]++;
+        }
+    }
+    
+    public static void iniciar() {
+        CONTADOR.set(new int[1]);
+    }
+    
+    /**
+     * Total desde iniciar(), ou -1 se a contagem não estiver ativa na thread.
+     */
+    public static int total() {
+        int[] contador = CONTADOR.get();
+        return contador != null ? contador[0] : -1;
+    }
+    
+    public static int encerrar() {
+        int total = total();
+        CONTADOR.remove();
+        return total;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.config;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Conta o SQL dos corpos em streaming (StreamingResponseBody), que rodam no executor assíncrono
+ * do Spring MVC, fora da thread em que o OrcamentoSqlFilter abriu a contagem.
+ * O total fica em {@link #ATRIBUTO_TOTAL} e é somado pelo filtro no despacho assíncrono.
+ */
+public class ContagemSqlAssincrona implements CallableProcessingInterceptor {
+    
+    public static final String ATRIBUTO_TOTAL = ContagemSqlAssincrona.class.getName() + ".total";
+    
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        ContadorSql.iniciar();
+    }
+    
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        // Roda antes do despacho assíncrono, então o filtro já encontra o atributo
+        int total = ContadorSql.encerrar();
+        if (total >= 0) {
+            request.setAttribute(ATRIBUTO_TOTAL, total, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de instruções SQL por requisição (expostas em /api/metricas).
+ */
+@Component
+public class EstatisticasSql {
+    
+    private static final int ENDPOINTS_NO_RESUMO = 10;
+    
+    private final int orcamento;
+    private final LongAdder requisicoes = new LongAdder();
+    private final LongAdder instrucoes = new LongAdder();
+    private final LongAdder acimaDoOrcamento = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Long::max, 0);
+    // Endpoint (método + padrão da rota) -> maior contagem observada
+    private final Map<String, LongAccumulator> maximoPorEndpoint = new ConcurrentHashMap<>();
+    
+    public EstatisticasSql(@Value("${sql.orcamento.maximo-por-requisicao:25}") int orcamento) {
+        this.orcamento = orcamento;
+    }
+    
+    public int getOrcamento() {
+        return orcamento;
+    }
+    
+    /**
+     * @return true se a requisição passou do orçamento
+     */
+    public boolean registrar(String endpoint, int total) {
+        requisicoes.increment();
+        instrucoes.add(total);
+        maximo.accumulate(total);
+        maximoPorEndpoint.computeIfAbsent(endpoint, e -> new LongAccumulator(Long::max, 0)).accumulate(total);
+        
+        boolean acima = total > orcamento;
+        if (acima) {
+            acimaDoOrcamento.increment();
+        }
+        return acima;
+    }
+    
+    public Map<String, Object> estatisticas() {
+        long totalRequisicoes = requisicoes.sum();
+        
+        Map<String, Long> piores = new LinkedHashMap<>();
+        maximoPorEndpoint.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, LongAccumulator> e) -> e.getValue().get()).reversed())
+            .limit(ENDPOINTS_NO_RESUMO)
+            .forEach(e -> piores.put(e.getKey(), e.getValue().get()));
+        
+        Map<String, Object> dados = new LinkedHashMap<>();
+        dados.put("orcamentoPorRequisicao", orcamento);
+        dados.put("requisicoes", totalRequisicoes);
+        dados.put("instrucoes", instrucoes.sum());
+        dados.put("mediaPorRequisicao", totalRequisicoes == 0 ? 0.0 : (double) instrucoes.sum() / totalRequisicoes);
+        dados.put("maximo", maximo.get());
+        dados.put("acimaDoOrcamento", acimaDoOrcamento.sum());
+        dados.put("maioresPorEndpoint", piores);
+        return dados;
+    }
+}
@@ -37,9 +37,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             final String jwt = authHeader.substring(7);
             
-            if (jwtService.isTokenValid(jwt) && !jwtService.isTokenExpired(jwt)) {
-                Long userId = jwtService.getUserIdFromToken(jwt);
-                String email = jwtService.getEmailFromToken(jwt);
+            // Uma única verificação do token (com cache) em vez de um parse por claim
+            jwtService.validarToken(jwt).ifPresent(principal -> {
+                Long userId = principal.getUserId();
                 
                 if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -48,11 +48,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     
                     // Adicionar informações extras no contexto
                     request.setAttribute("userId", userId);
-                    request.setAttribute("userEmail", email);
+                    request.setAttribute("userEmail", principal.getEmail());
                     
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
-            }
+            });
         } catch (Exception e) {
             // Token inválido, continua sem autenticação
         }
@@ -0,0 +1,81 @@
+package com.example.demo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Conta as instruções SQL de cada requisição HTTP (ContadorSql), registra nas métricas
+ * e avisa no log quando passa do orçamento (sql.orcamento.maximo-por-requisicao).
+ * O total fica no atributo {@link #ATRIBUTO_TOTAL} da requisição e no cabeçalho
+ * {@link #CABECALHO} (ver CabecalhoSqlAdvice). Respostas em streaming são registradas
+ * no despacho assíncrono, já com o SQL do corpo (ver ContagemSqlAssincrona).
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class OrcamentoSqlFilter extends OncePerRequestFilter {
+    
+    public static final String CABECALHO = "X-Sql-Count";
+    public static final String ATRIBUTO_TOTAL = OrcamentoSqlFilter.class.getName() + ".total";
+    
+    private final EstatisticasSql estatisticasSql;
+    
+    // Corpos em streaming terminam num despacho assíncrono; é nele que a contagem fecha
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+    
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        
+        ContadorSql.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int total = ContadorSql.encerrar();
+            if (isAsyncDispatch(request)) {
+                // Soma o despacho inicial e o que rodou no executor (ContagemSqlAssincrona)
+                total += contagem(request, ATRIBUTO_TOTAL) + contagem(request, ContagemSqlAssincrona.ATRIBUTO_TOTAL);
+            }
+            request.setAttribute(ATRIBUTO_TOTAL, total);
+            
+            // Com o processamento assíncrono iniciado, o total ainda está incompleto
+            if (!isAsyncStarted(request)) {
+                if (!response.isCommitted()) {
+                    response.setHeader(CABECALHO, String.valueOf(total));
+                }
+                
+                String endpoint = endpoint(request);
+                if (estatisticasSql.registrar(endpoint, total)) {
+                    log.warn("{} executou {} instruções SQL (orçamento: {})", endpoint, total, estatisticasSql.getOrcamento());
+                }
+            }
+        }
+    }
+    
+    private static int contagem(HttpServletRequest request, String atributo) {
+        return request.getAttribute(atributo) instanceof Integer total ? total : 0;
+    }
+    
+    // Agrupa pela rota mapeada (/api/contas/{id}) e não pela URI, para não explodir a quantidade de chaves
+    private static String endpoint(HttpServletRequest request) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (padrao != null ? padrao : request.getRequestURI());
+    }
+}
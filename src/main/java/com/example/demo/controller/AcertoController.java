@@ -0,0 +1,30 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.AcertarContasDTO;
+import com.example.demo.dto.ResultadoAcertoDTO;
+import com.example.demo.service.AcertoService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/acertos")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AcertoController {
+    
+    private final AcertoService acertoService;
+    
+    // Quita de uma vez divisões e dívidas do usuário autenticado: pelos ids ou tudo em aberto com um contato
+    @PostMapping
+    public ResponseEntity<ResultadoAcertoDTO> acertar(
+            @Valid @RequestBody AcertarContasDTO acertarDTO,
+            HttpServletRequest request) {
+        Long usuarioId = (Long) request.getAttribute("userId");
+        ResultadoAcertoDTO resultado = acertoService.acertar(usuarioId, acertarDTO);
+        return ResponseEntity.ok(resultado);
+    }
+}
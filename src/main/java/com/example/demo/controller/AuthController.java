@@ -68,8 +68,14 @@ public class AuthController {
     }
     
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, Object>> logout() {
-        // O logout é tratado no frontend removendo o token do localStorage
+    public ResponseEntity<Map<String, Object>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        // Revoga o token atual; o frontend continua removendo o token do localStorage
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            authService.logout(authHeader.substring(7));
+        }
+        
         return ResponseEntity.ok(Map.of(
             "data", (Object) null,
             "message", "Logout realizado com sucesso"
@@ -1,15 +1,24 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.ContaDTO;
+import com.example.demo.dto.PaginaCursorDTO;
+import com.example.demo.dto.ResultadoImportacaoDTO;
+import com.example.demo.model.StatusConta;
 import com.example.demo.service.ContaService;
+import com.example.demo.service.ImportacaoContaService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -20,6 +29,7 @@ import java.util.List;
 public class ContaController {
     
     private final ContaService contaService;
+    private final ImportacaoContaService importacaoContaService;
     
     @GetMapping
     public ResponseEntity<List<ContaDTO>> listarContas(HttpServletRequest request) {
@@ -35,6 +45,24 @@ public class ContaController {
         return ResponseEntity.status(HttpStatus.CREATED).body(contaCriada);
     }
     
+    // Importação em massa: corpo em CSV (text/csv) ou NDJSON (application/x-ndjson), uma conta por linha,
+    // com o usuário autenticado como criador. Responde com o relatório de linhas importadas e com erro.
+    @PostMapping(value = "/importar", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ResultadoImportacaoDTO> importarContas(HttpServletRequest request) throws IOException {
+        Long usuarioId = (Long) request.getAttribute("userId");
+        ImportacaoContaService.Formato formato = MediaType.parseMediaType(request.getContentType())
+            .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+            ? ImportacaoContaService.Formato.CSV
+            : ImportacaoContaService.Formato.NDJSON;
+        Charset charset = request.getCharacterEncoding() != null
+            ? Charset.forName(request.getCharacterEncoding())
+            : StandardCharsets.UTF_8;
+        
+        ResultadoImportacaoDTO resultado = importacaoContaService.importar(
+            usuarioId, new InputStreamReader(request.getInputStream(), charset), formato);
+        return ResponseEntity.ok(resultado);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ContaDTO> buscarConta(@PathVariable Long id) {
         ContaDTO conta = contaService.buscarPorId(id);
@@ -48,7 +76,7 @@ public class ContaController {
         // Rota simples sem filtros de data (mantida para compatibilidade)
         List<ContaDTO> contas;
         if (paga != null) {
-            contas = contaService.listarContasDoUsuarioComFiltros(usuarioId, paga, null, null);
+            contas = contaService.listarContasDoUsuarioComFiltros(usuarioId, paga, null, null, null);
         } else {
             contas = contaService.listarContasDoUsuario(usuarioId);
         }
@@ -60,11 +88,12 @@ public class ContaController {
     public ResponseEntity<List<ContaDTO>> listarContasDoUsuarioComFiltros(
             @PathVariable Long usuarioId,
             @RequestParam(required = false) Boolean paga,
+            @RequestParam(required = false) StatusConta status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate vencimentoInicial,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate vencimentoFinal) {
         
         List<ContaDTO> contas = contaService.listarContasDoUsuarioComFiltros(
-            usuarioId, paga, vencimentoInicial, vencimentoFinal);
+            usuarioId, paga, status, vencimentoInicial, vencimentoFinal);
         return ResponseEntity.ok(contas);
     }
     
@@ -108,6 +137,23 @@ public class ContaController {
         return ResponseEntity.ok(contas);
     }
     
+    // Extrato do grupo paginado por cursor: ?antesDeId=<proximoCursor da página anterior>&limite=20
+    @GetMapping("/grupo/{grupoId}/pagina")
+    public ResponseEntity<PaginaCursorDTO<ContaDTO>> listarPaginaDoGrupo(
+            @PathVariable Long grupoId,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestParam(required = false) Boolean paga,
+            @RequestParam(required = false) StatusConta status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate vencimentoInicial,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate vencimentoFinal,
+            HttpServletRequest request) {
+        Long usuarioId = (Long) request.getAttribute("userId");
+        PaginaCursorDTO<ContaDTO> pagina = contaService.listarPaginaDoGrupo(
+            grupoId, usuarioId, antesDeId, limite, paga, status, vencimentoInicial, vencimentoFinal);
+        return ResponseEntity.ok(pagina);
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletarConta(@PathVariable Long id) {
         contaService.deletarConta(id);
@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.DividaDTO;
+import com.example.demo.dto.PaginaCursorDTO;
 import com.example.demo.service.DividaService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -38,6 +39,16 @@ public class DividaController {
         return ResponseEntity.ok(dividas);
     }
     
+    // Dívidas do usuário paginadas por cursor: ?antesDeId=<proximoCursor da página anterior>&limite=20
+    @GetMapping("/usuario/{usuarioId}/pagina")
+    public ResponseEntity<PaginaCursorDTO<DividaDTO>> listarPaginaDoUsuario(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) Boolean paga,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(dividaService.listarPaginaDoUsuario(usuarioId, paga, antesDeId, limite));
+    }
+    
     @GetMapping("/usuario/{usuarioId}/devendo")
     public ResponseEntity<List<DividaDTO>> listarDividasDevidas(
             @PathVariable Long usuarioId,
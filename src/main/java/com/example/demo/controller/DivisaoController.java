@@ -1,9 +1,11 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.DivisaoContaDTO;
+import com.example.demo.dto.DivisaoDTO;
 import com.example.demo.dto.DividirPorcentagemDTO;
 import com.example.demo.dto.MarcarPagamentoDTO;
-import com.example.demo.model.Divisao;
+import com.example.demo.dto.PaginaCursorDTO;
+import com.example.demo.dto.ResultadoDivisaoDTO;
 import com.example.demo.service.DivisaoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -21,40 +23,53 @@ public class DivisaoController {
     
     private final DivisaoService divisaoService;
     
+    // simular=true: só calcula e valida a divisão, sem gravar
     @PostMapping("/dividir")
-    public ResponseEntity<String> dividirConta(@Valid @RequestBody DivisaoContaDTO divisaoContaDTO) {
-        divisaoService.dividirConta(divisaoContaDTO);
-        return ResponseEntity.ok("Conta dividida com sucesso!");
+    public ResponseEntity<ResultadoDivisaoDTO> dividirConta(
+            @Valid @RequestBody DivisaoContaDTO divisaoContaDTO,
+            @RequestParam(defaultValue = "false") boolean simular) {
+        return ResponseEntity.ok(divisaoService.dividirConta(divisaoContaDTO, simular));
     }
     
     @PostMapping("/dividir-igualmente")
-    public ResponseEntity<String> dividirContaIgualmente(
+    public ResponseEntity<ResultadoDivisaoDTO> dividirContaIgualmente(
             @RequestParam Long contaId,
-            @RequestBody List<Long> usuarioIds) {
-        divisaoService.dividirContaIgualmente(contaId, usuarioIds);
-        return ResponseEntity.ok("Conta dividida igualmente com sucesso!");
+            @RequestBody List<Long> usuarioIds,
+            @RequestParam(defaultValue = "false") boolean simular) {
+        return ResponseEntity.ok(divisaoService.dividirContaIgualmente(contaId, usuarioIds, simular));
     }
     
     @PostMapping("/dividir-porcentagem")
-    public ResponseEntity<String> dividirContaPorPorcentagem(@Valid @RequestBody DividirPorcentagemDTO dividirDTO) {
-        divisaoService.dividirContaPorPorcentagem(dividirDTO);
-        return ResponseEntity.ok("Conta dividida por porcentagem com sucesso!");
+    public ResponseEntity<ResultadoDivisaoDTO> dividirContaPorPorcentagem(
+            @Valid @RequestBody DividirPorcentagemDTO dividirDTO,
+            @RequestParam(defaultValue = "false") boolean simular) {
+        return ResponseEntity.ok(divisaoService.dividirContaPorPorcentagem(dividirDTO, simular));
     }
     
     @GetMapping("/conta/{contaId}")
-    public ResponseEntity<List<Divisao>> listarDivisoesDaConta(@PathVariable Long contaId) {
-        List<Divisao> divisoes = divisaoService.listarDivisoesDaConta(contaId);
+    public ResponseEntity<List<DivisaoDTO>> listarDivisoesDaConta(@PathVariable Long contaId) {
+        List<DivisaoDTO> divisoes = divisaoService.listarDivisoesDaConta(contaId);
         return ResponseEntity.ok(divisoes);
     }
     
     @GetMapping("/usuario/{usuarioId}")
-    public ResponseEntity<List<Divisao>> listarDivisoesDoUsuario(
+    public ResponseEntity<List<DivisaoDTO>> listarDivisoesDoUsuario(
             @PathVariable Long usuarioId,
             @RequestParam(required = false) Boolean pago) {
-        List<Divisao> divisoes = divisaoService.listarDivisoesDoUsuario(usuarioId, pago);
+        List<DivisaoDTO> divisoes = divisaoService.listarDivisoesDoUsuario(usuarioId, pago);
         return ResponseEntity.ok(divisoes);
     }
     
+    // Divisões do usuário paginadas por cursor: ?antesDeId=<proximoCursor da página anterior>&limite=20
+    @GetMapping("/usuario/{usuarioId}/pagina")
+    public ResponseEntity<PaginaCursorDTO<DivisaoDTO>> listarPaginaDoUsuario(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) Boolean pago,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(divisaoService.listarPaginaDoUsuario(usuarioId, pago, antesDeId, limite));
+    }
+    
     @GetMapping("/usuario/{usuarioId}/total-devido")
     public ResponseEntity<BigDecimal> calcularTotalDevido(@PathVariable Long usuarioId) {
         BigDecimal totalDevido = divisaoService.calcularTotalDevido(usuarioId);
@@ -62,11 +77,19 @@ public class DivisaoController {
     }
     
     @GetMapping("/usuario/{usuarioId}/pendentes-receber")
-    public ResponseEntity<List<Divisao>> listarDivisoesPendentesParaReceber(@PathVariable Long usuarioId) {
-        List<Divisao> divisoes = divisaoService.listarDivisoesPendentesParaReceber(usuarioId);
+    public ResponseEntity<List<DivisaoDTO>> listarDivisoesPendentesParaReceber(@PathVariable Long usuarioId) {
+        List<DivisaoDTO> divisoes = divisaoService.listarDivisoesPendentesParaReceber(usuarioId);
         return ResponseEntity.ok(divisoes);
     }
     
+    @GetMapping("/usuario/{usuarioId}/pendentes-receber/pagina")
+    public ResponseEntity<PaginaCursorDTO<DivisaoDTO>> listarPaginaPendentesParaReceber(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(divisaoService.listarPaginaParaReceber(usuarioId, antesDeId, limite));
+    }
+    
     @PatchMapping("/{divisaoId}/marcar-paga")
     public ResponseEntity<String> marcarDivisaoComoPaga(@PathVariable Long divisaoId) {
         divisaoService.marcarDivisaoComoPaga(divisaoId);
@@ -0,0 +1,58 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.ExportacaoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*") // Para permitir requisições do frontend
+public class ExportacaoController {
+    
+    private final ExportacaoService exportacaoService;
+    
+    // Histórico financeiro do usuário autenticado em streaming:
+    // ?formato=ndjson|csv&secoes=contas,divisoes,dividas,compras,pagamentos&gzip=true
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) String secoes,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+        Long usuarioId = (Long) request.getAttribute("userId");
+        // Parâmetros validados antes de começar a resposta, para erro sair como 400
+        ExportacaoService.Formato tipo = ExportacaoService.Formato.de(formato);
+        Set<ExportacaoService.Secao> selecionadas = ExportacaoService.Secao.de(secoes);
+        
+        String arquivo = "historico-" + usuarioId + (tipo == ExportacaoService.Formato.CSV ? ".csv" : ".ndjson");
+        MediaType conteudo = tipo == ExportacaoService.Formato.CSV
+            ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+            : MediaType.parseMediaType("application/x-ndjson");
+        
+        StreamingResponseBody corpo = saida -> {
+            if (gzip) {
+                // Compactado na hora; fechar o GZIPOutputStream libera o Deflater, mas não fecha a saída do servlet
+                try (GZIPOutputStream compactado = new GZIPOutputStream(StreamUtils.nonClosing(saida), 64 * 1024)) {
+                    exportacaoService.exportar(usuarioId, selecionadas, tipo, compactado);
+                }
+            } else {
+                exportacaoService.exportar(usuarioId, selecionadas, tipo, saida);
+            }
+        };
+        
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + (gzip ? ".gz" : "") + "\"")
+            .contentType(gzip ? MediaType.parseMediaType("application/gzip") : conteudo)
+            .body(corpo);
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.AcertoGrupoDTO;
 import com.example.demo.dto.CriarGrupoDTO;
 import com.example.demo.dto.GerenciarMembrosDTO;
 import com.example.demo.dto.GrupoDTO;
+import com.example.demo.service.AcertoGrupoService;
 import com.example.demo.service.GrupoService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +22,7 @@ import java.util.List;
 public class GrupoController {
     
     private final GrupoService grupoService;
+    private final AcertoGrupoService acertoGrupoService;
     
     @PostMapping("/criar/{criadorId}")
     public ResponseEntity<GrupoDTO> criarGrupo(
@@ -66,4 +70,24 @@ public class GrupoController {
         grupoService.sairDoGrupo(grupoId, usuarioId);
         return ResponseEntity.noContent().build();
     }
+    
+    // Plano de acerto do grupo (transferências mínimas entre os participantes)
+    @GetMapping("/{grupoId}/acerto")
+    public ResponseEntity<AcertoGrupoDTO> calcularAcerto(
+            @PathVariable Long grupoId,
+            HttpServletRequest request) {
+        Long usuarioId = (Long) request.getAttribute("userId");
+        AcertoGrupoDTO acerto = acertoGrupoService.calcularAcerto(grupoId, usuarioId);
+        return ResponseEntity.ok(acerto);
+    }
+    
+    // Aplica o acerto: marca como pagas as divisões em aberto entre participantes do grupo
+    @PostMapping("/{grupoId}/acerto/aplicar")
+    public ResponseEntity<AcertoGrupoDTO> aplicarAcerto(
+            @PathVariable Long grupoId,
+            HttpServletRequest request) {
+        Long usuarioId = (Long) request.getAttribute("userId");
+        AcertoGrupoDTO acerto = acertoGrupoService.aplicarAcerto(grupoId, usuarioId);
+        return ResponseEntity.ok(acerto);
+    }
 }
@@ -1,5 +1,9 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.EstatisticasSql;
+import com.example.demo.service.RetentativaOtimista;
+import com.example.demo.service.SenhaService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,8 +15,13 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
+@RequiredArgsConstructor
 public class HealthController {
     
+    private final SenhaService senhaService;
+    private final EstatisticasSql estatisticasSql;
+    private final RetentativaOtimista retentativaOtimista;
+    
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         Map<String, Object> response = new HashMap<>();
@@ -39,4 +48,15 @@ public class HealthController {
         
         return ResponseEntity.ok(response);
     }
+    
+    @GetMapping("/metricas")
+    public ResponseEntity<Map<String, Object>> metricas() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("bcrypt", senhaService.estatisticas());
+        response.put("sql", estatisticasSql.estatisticas());
+        response.put("concorrencia", retentativaOtimista.estatisticas());
+        
+        return ResponseEntity.ok(response);
+    }
 }
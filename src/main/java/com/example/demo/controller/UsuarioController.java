@@ -1,13 +1,19 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.PaginaCursorDTO;
+import com.example.demo.dto.ResultadoBuscaUsuarioDTO;
 import com.example.demo.dto.SaldoUsuarioDTO;
 import com.example.demo.dto.UsuarioDTO;
 import com.example.demo.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
 import java.util.List;
@@ -44,6 +50,36 @@ public class UsuarioController {
         return ResponseEntity.ok(usuarios);
     }
     
+    // Listagem paginada por cursor: ?aposId=<proximoCursor da página anterior>&limite=50
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaCursorDTO<UsuarioDTO>> listarUsuariosPaginado(
+            @RequestParam(required = false) Long aposId,
+            @RequestParam(defaultValue = "50") int limite) {
+        PaginaCursorDTO<UsuarioDTO> pagina = usuarioService.listarPagina(aposId, limite);
+        return ResponseEntity.ok(pagina);
+    }
+    
+    // Autocomplete por nome/email: amigos do usuário autenticado aparecem primeiro
+    @GetMapping("/busca")
+    public ResponseEntity<List<ResultadoBuscaUsuarioDTO>> buscarUsuarios(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limite,
+            HttpServletRequest request) {
+        Long usuarioId = (Long) request.getAttribute("userId");
+        List<ResultadoBuscaUsuarioDTO> resultados = usuarioService.buscarUsuarios(usuarioId, q, limite);
+        return ResponseEntity.ok(resultados);
+    }
+    
+    // Exportação completa em NDJSON (um usuário por linha), sem carregar tudo em memória
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios() {
+        StreamingResponseBody corpo = saida -> usuarioService.exportarNdjson(saida);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"usuarios.ndjson\"")
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(corpo);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<UsuarioDTO> atualizarUsuario(
             @PathVariable Long id, 
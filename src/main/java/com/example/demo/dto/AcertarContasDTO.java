@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Acerto avulso: as divisões e dívidas pelos ids, ou tudo o que está em aberto com um contato.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AcertarContasDTO {
+    
+    @Size(max = 500, message = "No máximo 500 divisões por acerto")
+    private List<Long> divisaoIds;
+    
+    @Size(max = 500, message = "No máximo 500 dívidas por acerto")
+    private List<Long> dividaIds;
+    
+    // Alternativa aos ids: tudo em aberto entre o usuário autenticado e este contato, nos dois sentidos
+    private Long contraparteId;
+    
+    private String formaPagamento; // Ex: "Pix", "Dinheiro"; padrão "ACERTO"
+}
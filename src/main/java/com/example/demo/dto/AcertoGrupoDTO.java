@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AcertoGrupoDTO {
+    private Long grupoId;
+    private String nomeGrupo;
+    private int itensEmAberto;            // Divisões consideradas no acerto
+    private BigDecimal totalMovimentado;  // Soma das transferências
+    private boolean aplicado;             // true quando as divisões já foram marcadas como pagas
+    private List<TransferenciaDTO> transferencias;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransferenciaDTO {
+        private Long deUsuarioId;
+        private String deNome;
+        private Long paraUsuarioId;
+        private String paraNome;
+        private BigDecimal valor;
+    }
+}
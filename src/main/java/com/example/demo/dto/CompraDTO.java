@@ -10,6 +10,7 @@ import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -40,4 +41,41 @@ public class CompraDTO {
     // Campos calculados
     private BigDecimal valorTotal; // Soma de todos os itens
     private Integer totalItens;    // Quantidade total de itens
+    
+    public static CompraDTO fromModel(com.example.demo.model.Compra compra) {
+        CompraDTO dto = CompraDTO.builder()
+            .id(compra.getId())
+            .descricao(compra.getDescricao())
+            .dataCompra(compra.getDataCompra())
+            .dataCriacao(compra.getDataCriacao())
+            .usuarioCriadorId(compra.getUsuarioCriador().getId())
+            .finalizada(compra.getFinalizada())
+            .observacoes(compra.getObservacoes())
+            .build();
+        
+        // Converter usuário criador
+        dto.setUsuarioCriador(UsuarioDTO.builder()
+            .id(compra.getUsuarioCriador().getId())
+            .nome(compra.getUsuarioCriador().getNome())
+            .email(compra.getUsuarioCriador().getEmail())
+            .chavePix(compra.getUsuarioCriador().getChavePix())
+            .build());
+        
+        // Converter itens
+        if (compra.getItens() != null) {
+            List<ItemCompraDTO> itensDTO = new ArrayList<>(compra.getItens().size());
+            long centavos = 0;
+            for (com.example.demo.model.ItemCompra item : compra.getItens()) {
+                itensDTO.add(ItemCompraDTO.fromModel(item));
+                centavos += item.getValorTotalCentavos();
+            }
+            dto.setItens(itensDTO);
+            
+            // Calcular campos agregados
+            dto.setTotalItens(itensDTO.size());
+            dto.setValorTotal(com.example.demo.model.Dinheiro.paraBigDecimal(centavos));
+        }
+        
+        return dto;
+    }
 }
@@ -36,4 +36,12 @@ public class ContaDTO {
     @NotNull(message = "ID do criador é obrigatório")
     private Long criadorId;
     private UsuarioDTO criador;
+    
+    // Projeção JPQL (SELECT new ...): conta + dados do criador em uma única consulta
+    public ContaDTO(Long id, String descricao, BigDecimal valor, LocalDate vencimento, Boolean paga,
+                    StatusConta status, LocalDateTime dataCriacao,
+                    Long criadorId, String criadorNome, String criadorEmail, String criadorChavePix) {
+        this(id, descricao, valor, vencimento, paga, status, dataCriacao, criadorId,
+            new UsuarioDTO(criadorId, criadorNome, criadorEmail, criadorChavePix));
+    }
 }
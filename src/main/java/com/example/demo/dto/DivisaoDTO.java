@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Leitura de uma divisão já com os dados da conta e dos dois lados (quem deve e o criador da conta,
+ * a quem se paga), montada direto na consulta JPQL. A ordem dos campos é a do construtor usado
+ * nas consultas do DivisaoRepository.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DivisaoDTO {
+    private Long id;
+    private Long contaId;
+    private String descricaoConta;
+    private LocalDate vencimento;
+    private BigDecimal valor;
+    private Boolean pago;
+    private LocalDateTime dataPagamento;
+    private String formaPagamento;
+    private Long usuarioId;      // Quem deve a divisão
+    private String nomeUsuario;
+    private Long credorId;       // Criador da conta
+    private String nomeCredor;
+}
@@ -0,0 +1,35 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Uma linha da importação em massa (NDJSON): a conta e, opcionalmente, suas divisões.
+ * O criador é sempre o usuário autenticado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoContaDTO {
+    private String descricao;
+    private BigDecimal valor;
+    private LocalDate vencimento;
+    private Long grupoId;
+    private List<DivisaoImportadaDTO> divisoes;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DivisaoImportadaDTO {
+        private Long usuarioId;
+        private BigDecimal valor;
+    }
+}
@@ -38,4 +38,26 @@ public class ItemCompraDTO {
     
     // Campo calculado
     private BigDecimal valorTotal; // valor * quantidade
+    
+    public static ItemCompraDTO fromModel(com.example.demo.model.ItemCompra item) {
+        ItemCompraDTO dto = ItemCompraDTO.builder()
+            .id(item.getId())
+            .descricao(item.getDescricao())
+            .valor(item.getValor())
+            .quantidade(item.getQuantidade())
+            .usuarioResponsavelId(item.getUsuarioResponsavel().getId())
+            .observacoes(item.getObservacoes())
+            .valorTotal(item.getValorTotal())
+            .build();
+        
+        // Converter usuário responsável
+        dto.setUsuarioResponsavel(UsuarioDTO.builder()
+            .id(item.getUsuarioResponsavel().getId())
+            .nome(item.getUsuarioResponsavel().getNome())
+            .email(item.getUsuarioResponsavel().getEmail())
+            .chavePix(item.getUsuarioResponsavel().getChavePix())
+            .build());
+        
+        return dto;
+    }
 }
@@ -0,0 +1,38 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Uma linha do histórico financeiro exportado (/api/export). As mesmas colunas servem
+ * para todas as seções; no NDJSON os campos nulos são omitidos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LinhaExportacaoDTO {
+    private String tipo;             // CONTA, DIVISAO, DIVIDA, ITEM_COMPRA ou PAGAMENTO_EXTERNO
+    private Object id;               // Long, ou String nos pagamentos externos
+    private Long referenciaId;       // Grupo da conta, conta da divisão/pagamento, compra do item
+    private String descricao;
+    private BigDecimal valor;
+    private Integer quantidade;
+    private String papel;            // CRIADOR, DEVEDOR ou CREDOR
+    private Long contraparteId;
+    private String contraparteNome;
+    private LocalDateTime dataCriacao;
+    private LocalDate vencimento;
+    private Boolean pago;
+    private String status;
+    private LocalDateTime dataPagamento;
+    private String formaPagamento;
+}
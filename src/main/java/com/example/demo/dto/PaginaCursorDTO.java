@@ -0,0 +1,52 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de uma listagem por cursor (keyset): para a próxima página, envie proximoCursor
+ * no parâmetro de cursor do endpoint: antesDeId nas listagens das mais recentes para as
+ * mais antigas (contas do grupo, divisões, dívidas) e aposId na listagem de usuários.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorDTO<T> {
+    private List<T> itens;
+    private Long proximoCursor;
+    private boolean temMais;
+    
+    public static final int LIMITE_MAXIMO = 200;
+    
+    // Limite pedido pelo cliente, entre 1 e o máximo do endpoint
+    public static int tamanho(int limite) {
+        return tamanho(limite, LIMITE_MAXIMO);
+    }
+    
+    public static int tamanho(int limite, int maximo) {
+        return Math.max(1, Math.min(limite, maximo));
+    }
+    
+    /**
+     * Monta a página a partir de uma consulta feita com Limit.of(tamanho + 1):
+     * o item a mais só indica que existe próxima página e fica de fora.
+     */
+    public static <T> PaginaCursorDTO<T> de(List<T> itens, int tamanho, Function<T, Long> id) {
+        boolean temMais = itens.size() > tamanho;
+        if (temMais) {
+            itens = itens.subList(0, tamanho);
+        }
+        
+        return PaginaCursorDTO.<T>builder()
+            .itens(itens)
+            .proximoCursor(itens.isEmpty() ? null : id.apply(itens.get(itens.size() - 1)))
+            .temMais(temMais)
+            .build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoAcertoDTO {
+    private int divisoesPagas;
+    private int dividasPagas;
+    private int contasQuitadas;           // Contas que ficaram sem divisões pendentes com este acerto
+    private BigDecimal totalMovimentado;  // Soma dos pagamentos entre usuários diferentes
+    private List<AcertoGrupoDTO.TransferenciaDTO> pagamentos; // Um por par devedor/credor
+}
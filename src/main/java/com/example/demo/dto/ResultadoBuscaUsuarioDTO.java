@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoBuscaUsuarioDTO {
+    private Long id;
+    private String nome;
+    private String email;
+    private boolean amigo; // Amigos aparecem primeiro na busca
+}
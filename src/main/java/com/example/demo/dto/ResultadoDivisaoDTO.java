@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoDivisaoDTO {
+    private Long contaId;
+    private String descricaoConta;
+    private BigDecimal valorConta;
+    private boolean simulacao;           // true = nada foi gravado, só o cálculo
+    private int divisoesSubstituidas;    // Divisões anteriores removidas (ou que seriam removidas)
+    private List<ParteDTO> divisoes;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ParteDTO {
+        private Long id;                 // null na simulação
+        private Long usuarioId;
+        private String nomeUsuario;
+        private BigDecimal valor;
+    }
+}
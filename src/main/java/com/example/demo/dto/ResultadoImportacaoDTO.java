@@ -0,0 +1,32 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacaoDTO {
+    private long linhasLidas;
+    private long contasImportadas;
+    private long divisoesImportadas;
+    private long linhasComErro;
+    private int lotes;
+    private long duracaoMs;
+    private List<ErroLinhaDTO> erros;   // Limitado a contas.importacao.maximo-erros
+    private long errosOmitidos;         // Erros além do limite (contados, mas não listados)
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErroLinhaDTO {
+        private long linha;
+        private String mensagem;
+    }
+}
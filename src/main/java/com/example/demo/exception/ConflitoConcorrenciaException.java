@@ -0,0 +1,12 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflitoConcorrenciaException extends RuntimeException {
+    
+    public ConflitoConcorrenciaException(String mensagem, Throwable causa) {
+        super(mensagem, causa);
+    }
+}
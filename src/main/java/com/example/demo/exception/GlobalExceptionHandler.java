@@ -1,5 +1,6 @@
 package com.example.demo.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -37,6 +38,32 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(erro);
     }
     
+    @ExceptionHandler(ServicoSobrecarregadoException.class)
+    public ResponseEntity<ErrorResponse> tratarSobrecarga(ServicoSobrecarregadoException e) {
+        ErrorResponse erro = ErrorResponse.builder()
+            .timestamp(LocalDateTime.now())
+            .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+            .error("Serviço sobrecarregado")
+            .message(e.getMessage())
+            .build();
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSegundos()))
+            .body(erro);
+    }
+    
+    @ExceptionHandler(ConflitoConcorrenciaException.class)
+    public ResponseEntity<ErrorResponse> tratarConflito(ConflitoConcorrenciaException e) {
+        ErrorResponse erro = ErrorResponse.builder()
+            .timestamp(LocalDateTime.now())
+            .status(HttpStatus.CONFLICT.value())
+            .error("Conflito de concorrência")
+            .message(e.getMessage())
+            .build();
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
+    }
+    
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> tratarValidacao(MethodArgumentNotValidException e) {
         Map<String, String> erros = new HashMap<>();
@@ -14,15 +14,21 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "contas")
+@Table(name = "contas", indexes = {
+    @Index(name = "idx_contas_grupo", columnList = "grupo_id, id"),
+    @Index(name = "idx_contas_criador_paga_vencimento", columnList = "criador_id, paga, vencimento"),
+    @Index(name = "idx_contas_status_vencimento", columnList = "status, vencimento")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Conta {
     
+    // Sequência com alocação em bloco (pooled): permite batch de INSERT, que IDENTITY desabilita
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contas_seq")
+    @SequenceGenerator(name = "contas_seq", sequenceName = "contas_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -44,6 +50,21 @@ public class Conta {
     @Builder.Default
     private LocalDateTime dataCriacao = LocalDateTime.now();
     
+    // Contadores das divisões, mantidos por UPDATEs condicionais a cada divisão criada, paga ou removida:
+    // quitação e PARCIALMENTE_PAGA saem deles em O(1), sem ler as divisões (ver ContadoresContaService)
+    @Column(name = "divisoes_pendentes", nullable = false)
+    @Builder.Default
+    private Integer divisoesPendentes = 0;
+    
+    @Column(name = "valor_pago", nullable = false, precision = 10, scale = 2)
+    @Builder.Default
+    private BigDecimal valorPago = BigDecimal.ZERO;
+    
+    // Controle otimista: toda alteração da conta, inclusive os UPDATEs em massa dos contadores,
+    // incrementa a versão, então uma entidade carregada antes não sobrescreve essas mudanças
+    @Version
+    private Long versao;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "criador_id", nullable = false)
     @JsonBackReference("usuario-contas")
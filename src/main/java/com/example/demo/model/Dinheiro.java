@@ -0,0 +1,171 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Valor monetário em centavos (long), para as somas e rateios feitos em laço.
+ * Os métodos estáticos trabalham direto sobre long, sem criar objetos por linha;
+ * a instância imutável serve para guardar/transportar o valor.
+ */
+public final class Dinheiro implements Comparable<Dinheiro> {
+    
+    public static final Dinheiro ZERO = new Dinheiro(0);
+    
+    private final long centavos;
+    
+    private Dinheiro(long centavos) {
+        this.centavos = centavos;
+    }
+    
+    public static Dinheiro deCentavos(long centavos) {
+        return centavos == 0 ? ZERO : new Dinheiro(centavos);
+    }
+    
+    public static Dinheiro de(BigDecimal valor) {
+        return deCentavos(centavos(valor));
+    }
+    
+    public long getCentavos() {
+        return centavos;
+    }
+    
+    public Dinheiro mais(Dinheiro outro) {
+        return deCentavos(Math.addExact(centavos, outro.centavos));
+    }
+    
+    public Dinheiro menos(Dinheiro outro) {
+        return deCentavos(Math.subtractExact(centavos, outro.centavos));
+    }
+    
+    public Dinheiro vezes(long quantidade) {
+        return deCentavos(Math.multiplyExact(centavos, quantidade));
+    }
+    
+    public BigDecimal paraBigDecimal() {
+        return paraBigDecimal(centavos);
+    }
+    
+    /**
+     * Divide em partes iguais; os centavos que sobram vão para as primeiras partes.
+     */
+    public Dinheiro[] alocar(int partes) {
+        long[] valores = alocar(centavos, partes);
+        Dinheiro[] resultado = new Dinheiro[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            resultado[i] = deCentavos(valores[i]);
+        }
+        return resultado;
+    }
+    
+    // ===== Operações sobre long (sem alocação por linha) =====
+    
+    /**
+     * Centavos de um valor com até 2 casas (arredonda HALF_UP se vier com mais casas).
+     */
+    public static long centavos(BigDecimal valor) {
+        if (valor == null) {
+            return 0;
+        }
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    public static BigDecimal paraBigDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+    
+    public static long somarCentavos(List<BigDecimal> valores) {
+        long soma = 0;
+        for (BigDecimal valor : valores) {
+            soma = Math.addExact(soma, centavos(valor));
+        }
+        return soma;
+    }
+    
+    /**
+     * Rateio igualitário: cada parte recebe total / partes e o resto é distribuído,
+     * um centavo por vez, às primeiras partes. A soma é sempre exatamente o total.
+     */
+    public static long[] alocar(long total, int partes) {
+        if (partes <= 0) {
+            throw new IllegalArgumentException("Quantidade de partes deve ser positiva");
+        }
+        long base = total / partes;
+        long resto = total % partes; // mesmo sinal do total
+        long ajuste = Long.signum(resto);
+        long[] valores = new long[partes];
+        for (int i = 0; i < partes; i++) {
+            valores[i] = i < Math.abs(resto) ? base + ajuste : base;
+        }
+        return valores;
+    }
+    
+    /**
+     * Rateio proporcional pelo método do maior resto: cada parte recebe o piso de total * peso / somaPesos
+     * e os centavos que faltam vão para as maiores frações (empate: a parte que vem antes).
+     * A soma é sempre exatamente o total.
+     */
+    public static long[] alocar(long total, long[] pesos) {
+        long somaPesos = 0;
+        for (long peso : pesos) {
+            if (peso < 0) {
+                throw new IllegalArgumentException("Pesos não podem ser negativos");
+            }
+            somaPesos = Math.addExact(somaPesos, peso);
+        }
+        if (somaPesos == 0) {
+            throw new IllegalArgumentException("A soma dos pesos deve ser positiva");
+        }
+        
+        long absoluto = Math.abs(total);
+        long[] valores = new long[pesos.length];
+        long[] restos = new long[pesos.length];
+        long distribuido = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            long produto = Math.multiplyExact(absoluto, pesos[i]);
+            valores[i] = produto / somaPesos;
+            restos[i] = produto % somaPesos;
+            distribuido += valores[i];
+        }
+        
+        // Faltam menos centavos do que partes: escolhe os maiores restos (O(n * faltando), n pequeno)
+        for (long faltando = absoluto - distribuido; faltando > 0; faltando--) {
+            int maior = 0;
+            for (int i = 1; i < restos.length; i++) {
+                if (restos[i] > restos[maior]) {
+                    maior = i;
+                }
+            }
+            valores[maior]++;
+            restos[maior] = -1;
+        }
+        
+        if (total < 0) {
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = -valores[i];
+            }
+        }
+        return valores;
+    }
+    
+    @Override
+    public int compareTo(Dinheiro outro) {
+        return Long.compare(centavos, outro.centavos);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Dinheiro outro && centavos == outro.centavos);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+    
+    @Override
+    public String toString() {
+        return paraBigDecimal().toPlainString();
+    }
+}
@@ -15,7 +15,11 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "dividas")
+// Índices das duas pontas da dívida; o id no fim atende à ordenação da paginação por cursor
+@Table(name = "dividas", indexes = {
+    @Index(name = "idx_dividas_devedor_paga", columnList = "usuario_devedor_id, paga, id"),
+    @Index(name = "idx_dividas_credor_paga", columnList = "usuario_credor_id, paga, id")
+})
 public class Divida {
     
     @Id
@@ -31,12 +35,12 @@ public class Divida {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal valor;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_devedor_id", nullable = false)
     @NotNull
     private Usuario usuarioDevedor; // Quem deve
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_credor_id", nullable = false)
     @NotNull
     private Usuario usuarioCredor; // Para quem deve
@@ -55,4 +59,7 @@ public class Divida {
     
     @Column(name = "forma_pagamento")
     private String formaPagamento;
+    
+    @Version
+    private Long versao;
 }
@@ -11,15 +11,20 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "divisoes")
+@Table(name = "divisoes", indexes = {
+    @Index(name = "idx_divisoes_conta_pago", columnList = "conta_id, pago"),
+    @Index(name = "idx_divisoes_usuario_conta", columnList = "usuario_id, conta_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Divisao {
     
+    // Sequência com alocação em bloco (pooled): permite batch de INSERT, que IDENTITY desabilita
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "divisoes_seq")
+    @SequenceGenerator(name = "divisoes_seq", sequenceName = "divisoes_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -44,4 +49,7 @@ public class Divisao {
     // RF10: Adicionar campo para forma de pagamento
     @Column(name = "forma_pagamento")
     private String formaPagamento;
+    
+    @Version
+    private Long versao;
 }
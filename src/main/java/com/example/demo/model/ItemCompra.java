@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.math.BigDecimal;
 
@@ -52,6 +53,12 @@ public class ItemCompra {
     
     // Método auxiliar para calcular o valor total do item
     public BigDecimal getValorTotal() {
-        return valor.multiply(BigDecimal.valueOf(quantidade));
+        return Dinheiro.paraBigDecimal(getValorTotalCentavos());
+    }
+    
+    // Valor total em centavos, para somas em laço sem criar BigDecimal por item
+    @JsonIgnore
+    public long getValorTotalCentavos() {
+        return Math.multiplyExact(Dinheiro.centavos(valor), quantidade);
     }
 }
@@ -63,6 +63,10 @@ public class PagamentoExterno {
     @Column(name = "data_expiracao", nullable = false)
     private LocalDateTime dataExpiracao;
     
+    // Evita confirmar o mesmo link duas vezes em requisições simultâneas
+    @Version
+    private Long versao;
+    
     // Relacionamentos para consultas mais eficientes (opcionais)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "conta_id", insertable = false, updatable = false)
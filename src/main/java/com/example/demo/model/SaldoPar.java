@@ -0,0 +1,61 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo em aberto entre dois usuários, mantido incrementalmente a cada
+ * criação, pagamento ou remoção de Divisao/Divida.
+ * O par é guardado sempre com usuarioAId < usuarioBId.
+ */
+@Entity
+@Table(name = "saldo_par",
+    uniqueConstraints = @UniqueConstraint(name = "uk_saldo_par_usuarios", columnNames = {"usuario_a_id", "usuario_b_id"}),
+    indexes = @Index(name = "idx_saldo_par_usuario_b", columnList = "usuario_b_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaldoPar {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "usuario_a_id", nullable = false)
+    private Long usuarioAId;
+    
+    @Column(name = "usuario_b_id", nullable = false)
+    private Long usuarioBId;
+    
+    // Positivo = B deve para A, Negativo = A deve para B
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal valor = BigDecimal.ZERO;
+    
+    // Quantidade de divisões/dívidas em aberto entre os dois
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer abertas = 0;
+    
+    @Column(name = "data_atualizacao")
+    @Builder.Default
+    private LocalDateTime dataAtualizacao = LocalDateTime.now();
+    
+    /**
+     * Saldo visto por um dos dois usuários: positivo = o outro me deve.
+     */
+    public BigDecimal saldoPara(Long usuarioId) {
+        return usuarioId.equals(usuarioAId) ? valor : valor.negate();
+    }
+    
+    public Long outroUsuario(Long usuarioId) {
+        return usuarioId.equals(usuarioAId) ? usuarioBId : usuarioAId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tokens_revogados", indexes = {
+    @Index(name = "idx_tokens_revogados_expira_em", columnList = "expira_em"),
+    @Index(name = "idx_tokens_revogados_data_revogacao", columnList = "data_revogacao")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenRevogado {
+    
+    @Id
+    @Column(length = 36)
+    private String jti; // Identificador único do token (claim "jti")
+    
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+    
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm; // Depois disso o token já não é aceito de qualquer forma
+    
+    @Column(name = "data_revogacao", nullable = false)
+    @Builder.Default
+    private LocalDateTime dataRevogacao = LocalDateTime.now();
+}
@@ -48,4 +48,10 @@ public interface AmizadeRepository extends JpaRepository<Amizade, Long> {
     // Listar amizades aceitas onde o usuário é convidado
     @Query("SELECT a FROM Amizade a WHERE a.convidado.id = :usuarioId AND a.status = 'ACEITA'")
     List<Amizade> findAmizadesComoSegundo(@Param("usuarioId") Long usuarioId);
+    
+    // Ids dos amigos (amizade aceita) de um usuário, sem carregar as entidades
+    @Query("SELECT CASE WHEN a.solicitante.id = :usuarioId THEN a.convidado.id ELSE a.solicitante.id END " +
+           "FROM Amizade a WHERE (a.solicitante.id = :usuarioId OR a.convidado.id = :usuarioId) " +
+           "AND a.status = 'ACEITA'")
+    List<Long> findIdsAmigos(@Param("usuarioId") Long usuarioId);
 }
@@ -1,21 +1,140 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.ContaDTO;
 import com.example.demo.model.Conta;
 import com.example.demo.model.Grupo;
+import com.example.demo.model.StatusConta;
 import com.example.demo.model.Usuario;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ContaRepository extends JpaRepository<Conta, Long> {
+public interface ContaRepository extends JpaRepository<Conta, Long>, JpaSpecificationExecutor<Conta> {
+    
+    // Consultas com ContaSpecifications: criador no mesmo SELECT (converterParaDTO usa nome/email/pix)
+    @Override
+    @EntityGraph(attributePaths = "criador")
+    List<Conta> findAll(Specification<Conta> spec, Sort sort);
     
     List<Conta> findByCriador(Usuario criador);
     
+    // ===== Contadores das divisões (divisoesPendentes / valorPago) =====
+    // Cada UPDATE trava a linha da conta até o commit: quem altera divisões de uma conta passa por aqui
+    // antes de tocar nas divisões, então operações simultâneas na mesma conta ficam em fila, sem deadlock
+    
+    // Pagamento de uma divisão: decrementa as pendentes e deriva paga/status na mesma instrução
+    // (paga e status antes do decremento, para lerem o valor anterior em qualquer banco)
+    @Modifying
+    @Query("UPDATE Conta c SET " +
+           "c.paga = CASE WHEN c.divisoesPendentes = 1 THEN true ELSE c.paga END, " +
+           "c.status = CASE WHEN c.divisoesPendentes = 1 THEN com.example.demo.model.StatusConta.PAGA " +
+           "WHEN c.status = com.example.demo.model.StatusConta.PENDENTE THEN com.example.demo.model.StatusConta.PARCIALMENTE_PAGA " +
+           "ELSE c.status END, " +
+           "c.divisoesPendentes = c.divisoesPendentes - 1, c.valorPago = c.valorPago + :valor, c.versao = c.versao + 1 " +
+           "WHERE c.id = :contaId AND c.divisoesPendentes > 0")
+    int registrarDivisaoPaga(@Param("contaId") Long contaId, @Param("valor") BigDecimal valor);
+    
+    // Divisão avulsa criada (convite aceito, POST de divisão)
+    @Modifying
+    @Query("UPDATE Conta c SET c.divisoesPendentes = c.divisoesPendentes + :pendentes, " +
+           "c.valorPago = c.valorPago + :valorPago, c.versao = c.versao + 1 WHERE c.id = :contaId")
+    int somarContadores(@Param("contaId") Long contaId,
+                        @Param("pendentes") int pendentes,
+                        @Param("valorPago") BigDecimal valorPago);
+    
+    // Nova divisão da conta: as divisões anteriores somem e as novas entram todas em aberto. Uma conta
+    // paga (ou parcialmente paga) volta a PENDENTE; VENCIDA continua VENCIDA
+    @Modifying
+    @Query("UPDATE Conta c SET " +
+           "c.paga = CASE WHEN :pendentes = 0 THEN true ELSE false END, " +
+           "c.status = CASE WHEN :pendentes = 0 THEN com.example.demo.model.StatusConta.PAGA " +
+           "WHEN :valorPago > 0 THEN com.example.demo.model.StatusConta.PARCIALMENTE_PAGA " +
+           "WHEN c.status IN (com.example.demo.model.StatusConta.PAGA, com.example.demo.model.StatusConta.PARCIALMENTE_PAGA) " +
+           "THEN com.example.demo.model.StatusConta.PENDENTE " +
+           "ELSE c.status END, " +
+           "c.divisoesPendentes = :pendentes, c.valorPago = :valorPago, c.versao = c.versao + 1 " +
+           "WHERE c.id = :contaId")
+    int redefinirContadores(@Param("contaId") Long contaId,
+                            @Param("pendentes") int pendentes,
+                            @Param("valorPago") BigDecimal valorPago);
+    
+    // Acerto avulso: divisões pedidas (ainda em aberto) de várias contas pagas de uma vez; mesma derivação
+    // de paga/status do pagamento individual. Retorna as contas alteradas
+    @Modifying
+    @Query("UPDATE Conta c SET " +
+           "c.paga = CASE WHEN c.divisoesPendentes = (SELECT COUNT(d) FROM Divisao d WHERE d.conta.id = c.id AND d.id IN :ids) THEN true ELSE c.paga END, " +
+           "c.status = CASE WHEN c.divisoesPendentes = (SELECT COUNT(d) FROM Divisao d WHERE d.conta.id = c.id AND d.id IN :ids) THEN com.example.demo.model.StatusConta.PAGA " +
+           "WHEN c.status = com.example.demo.model.StatusConta.PENDENTE THEN com.example.demo.model.StatusConta.PARCIALMENTE_PAGA " +
+           "ELSE c.status END, " +
+           "c.divisoesPendentes = c.divisoesPendentes - (SELECT COUNT(d) FROM Divisao d WHERE d.conta.id = c.id AND d.id IN :ids), " +
+           "c.valorPago = c.valorPago + (SELECT COALESCE(SUM(d.valor), 0) FROM Divisao d WHERE d.conta.id = c.id AND d.id IN :ids), " +
+           "c.versao = c.versao + 1 " +
+           "WHERE c.id IN (SELECT d.conta.id FROM Divisao d WHERE d.id IN :ids)")
+    int registrarDivisoesPagas(@Param("ids") Collection<Long> ids);
+    
+    // Contas das divisões do acerto que ficaram quitadas
+    @Query("SELECT COUNT(c) FROM Conta c WHERE c.divisoesPendentes = 0 AND c.paga = true " +
+           "AND c.id IN (SELECT d.conta.id FROM Divisao d WHERE d.id IN :ids)")
+    long countQuitadasDasDivisoes(@Param("ids") Collection<Long> ids);
+    
+    // Das contas informadas, as quitadas (acerto de grupo, depois de baixar as divisões de um lote de contas)
+    @Query("SELECT COUNT(c) FROM Conta c WHERE c.id IN :ids AND c.divisoesPendentes = 0 AND c.paga = true")
+    long countQuitadas(@Param("ids") Collection<Long> ids);
+    
+    // Verificação de integridade, em lotes por id: contas cujos contadores não batem com as divisões,
+    // ou com todas as divisões pagas e a conta ainda em aberto
+    @Query("SELECT c.id FROM Conta c WHERE c.id > :aposId AND (" +
+           "c.divisoesPendentes <> (SELECT COUNT(d) FROM Divisao d WHERE d.conta.id = c.id AND d.pago = false) " +
+           "OR c.valorPago <> (SELECT COALESCE(SUM(d.valor), 0) FROM Divisao d WHERE d.conta.id = c.id AND d.pago = true) " +
+           "OR (c.paga = false AND c.divisoesPendentes = 0 AND EXISTS (SELECT d.id FROM Divisao d WHERE d.conta.id = c.id))) " +
+           "ORDER BY c.id")
+    List<Long> findIdsComContadoresDivergentes(@Param("aposId") Long aposId, Limit limite);
+    
+    // Trava várias contas de uma vez, sempre em ordem de id (duas operações com contas em comum não se cruzam).
+    // Usado antes de mexer nas divisões de várias contas (acerto de grupo) e antes do recálculo dos contadores
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Conta c WHERE c.id IN :ids ORDER BY c.id")
+    List<Conta> travarEmOrdem(@Param("ids") Collection<Long> ids);
+    
+    // Recalcula os contadores e deriva paga/status como registrarDivisaoPaga: sem divisões em aberto a conta
+    // fica PAGA; PENDENTE com algo pago vira PARCIALMENTE_PAGA. Não mexe em paga/status de contas sem divisões,
+    // as únicas que podem ser marcadas à mão (ContaService.marcarComoPaga/marcarComoPendente)
+    @Modifying
+    @Query("UPDATE Conta c SET " +
+           "c.paga = CASE WHEN EXISTS (SELECT d.id FROM Divisao d WHERE d.conta.id = c.id) " +
+           "AND NOT EXISTS (SELECT d.id FROM Divisao d WHERE d.conta.id = c.id AND d.pago = false) THEN true ELSE c.paga END, " +
+           "c.status = CASE WHEN EXISTS (SELECT d.id FROM Divisao d WHERE d.conta.id = c.id) " +
+           "AND NOT EXISTS (SELECT d.id FROM Divisao d WHERE d.conta.id = c.id AND d.pago = false) " +
+           "THEN com.example.demo.model.StatusConta.PAGA " +
+           "WHEN c.status = com.example.demo.model.StatusConta.PENDENTE " +
+           "AND EXISTS (SELECT d.id FROM Divisao d WHERE d.conta.id = c.id AND d.pago = true) " +
+           "THEN com.example.demo.model.StatusConta.PARCIALMENTE_PAGA " +
+           "ELSE c.status END, " +
+           "c.divisoesPendentes = (SELECT COUNT(d) FROM Divisao d WHERE d.conta.id = c.id AND d.pago = false), " +
+           "c.valorPago = (SELECT COALESCE(SUM(d.valor), 0) FROM Divisao d WHERE d.conta.id = c.id AND d.pago = true), " +
+           "c.versao = c.versao + 1 " +
+           "WHERE c.id IN :ids")
+    int recalcularContadores(@Param("ids") List<Long> ids);
+    
     List<Conta> findByPaga(Boolean paga);
     
     List<Conta> findByVencimentoBefore(LocalDate data);
@@ -37,6 +156,59 @@ public interface ContaRepository extends JpaRepository<Conta, Long> {
     
     List<Conta> findByGrupoAndPaga(Grupo grupo, Boolean paga);
     
+    // Contas do grupo já como DTO (criador no mesmo SELECT), mais recentes primeiro.
+    // Percorre o índice (grupo_id, id): o custo acompanha o tamanho do grupo, não da tabela.
+    // antesDeId = cursor da página anterior; filtros nulos são ignorados.
+    @Query("SELECT new com.example.demo.dto.ContaDTO(c.id, c.descricao, c.valor, c.vencimento, c.paga, " +
+           "c.status, c.dataCriacao, cr.id, cr.nome, cr.email, cr.chavePix) " +
+           "FROM Conta c JOIN c.criador cr " +
+           "WHERE c.grupo.id = :grupoId " +
+           "AND (:antesDeId IS NULL OR c.id < :antesDeId) " +
+           "AND (:paga IS NULL OR c.paga = :paga) " +
+           "AND (:status IS NULL OR c.status = :status) " +
+           "AND (:inicio IS NULL OR c.vencimento >= :inicio) " +
+           "AND (:fim IS NULL OR c.vencimento <= :fim) " +
+           "ORDER BY c.id DESC")
+    List<ContaDTO> findResumosDoGrupo(@Param("grupoId") Long grupoId,
+                                      @Param("antesDeId") Long antesDeId,
+                                      @Param("paga") Boolean paga,
+                                      @Param("status") StatusConta status,
+                                      @Param("inicio") LocalDate inicio,
+                                      @Param("fim") LocalDate fim,
+                                      Limit limite);
+    
+    // Transição agendada de status, em lotes por id: primeiro os ids candidatos (pelo índice de status),
+    // depois um UPDATE que repete as condições para não atropelar pagamentos concorrentes
+    @Query("SELECT c.id FROM Conta c " +
+           "WHERE c.status IN (com.example.demo.model.StatusConta.PENDENTE, com.example.demo.model.StatusConta.PARCIALMENTE_PAGA) " +
+           "AND c.paga = false AND c.vencimento < :hoje AND c.id > :aposId " +
+           "ORDER BY c.id")
+    List<Long> findIdsParaVencer(@Param("hoje") LocalDate hoje, @Param("aposId") Long aposId, Limit limite);
+    
+    @Modifying
+    @Query("UPDATE Conta c SET c.status = com.example.demo.model.StatusConta.VENCIDA, c.versao = c.versao + 1 " +
+           "WHERE c.id IN :ids " +
+           "AND c.status IN (com.example.demo.model.StatusConta.PENDENTE, com.example.demo.model.StatusConta.PARCIALMENTE_PAGA) " +
+           "AND c.paga = false AND c.vencimento < :hoje")
+    int marcarVencidas(@Param("ids") List<Long> ids, @Param("hoje") LocalDate hoje);
+    
+    // Parcialmente paga: ainda no prazo (vencida tem prioridade) e com ao menos uma divisão paga (valorPago > 0).
+    // O pagamento de divisão já faz essa transição na hora; aqui ficam as que escaparam (ex.: contadores reconciliados)
+    @Query("SELECT c.id FROM Conta c " +
+           "WHERE c.status = com.example.demo.model.StatusConta.PENDENTE " +
+           "AND c.paga = false AND (c.vencimento IS NULL OR c.vencimento >= :hoje) AND c.id > :aposId " +
+           "AND c.valorPago > 0 " +
+           "ORDER BY c.id")
+    List<Long> findIdsParcialmentePagas(@Param("hoje") LocalDate hoje, @Param("aposId") Long aposId, Limit limite);
+    
+    @Modifying
+    @Query("UPDATE Conta c SET c.status = com.example.demo.model.StatusConta.PARCIALMENTE_PAGA, c.versao = c.versao + 1 " +
+           "WHERE c.id IN :ids " +
+           "AND c.status = com.example.demo.model.StatusConta.PENDENTE " +
+           "AND c.paga = false AND (c.vencimento IS NULL OR c.vencimento >= :hoje) " +
+           "AND c.valorPago > 0")
+    int marcarParcialmentePagas(@Param("ids") List<Long> ids, @Param("hoje") LocalDate hoje);
+    
     @Query("SELECT c FROM Conta c WHERE c.grupo = :grupo AND c.vencimento BETWEEN :inicio AND :fim")
     List<Conta> findByGrupoAndVencimentoBetween(@Param("grupo") Grupo grupo, 
                                                @Param("inicio") LocalDate inicio, 
@@ -46,4 +218,14 @@ public interface ContaRepository extends JpaRepository<Conta, Long> {
     List<Conta> findByVencimentoAndPagaFalse(LocalDate vencimento);
     
     List<Conta> findByVencimentoBeforeAndPagaFalse(LocalDate data);
+    
+    // Exportação do histórico (/api/export) em streaming: precisa de transação aberta
+    @Query("SELECT 'CONTA' AS tipo, c.id AS id, g.id AS referenciaId, c.descricao AS descricao, c.valor AS valor, " +
+           "'CRIADOR' AS papel, c.dataCriacao AS dataCriacao, c.vencimento AS vencimento, c.paga AS pago, c.status AS status " +
+           "FROM Conta c LEFT JOIN c.grupo g WHERE c.criador.id = :usuarioId ORDER BY c.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LinhaExportacao> streamParaExportacao(@Param("usuarioId") Long usuarioId);
 }
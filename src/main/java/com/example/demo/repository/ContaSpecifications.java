@@ -0,0 +1,82 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Conta;
+import com.example.demo.model.Divisao;
+import com.example.demo.model.StatusConta;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros de Conta combináveis, aplicados no banco (JpaSpecificationExecutor).
+ * Parâmetro nulo = filtro não aplicado (retorna null, que o Specification ignora).
+ *
+ * Índices usados: contas(criador_id, paga, vencimento) para "criadas por" + status/período
+ * e divisoes(usuario_id, conta_id) para o EXISTS de participação.
+ */
+public final class ContaSpecifications {
+    
+    private ContaSpecifications() {
+    }
+    
+    public static Specification<Conta> criadaPor(Long usuarioId) {
+        if (usuarioId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("criador").get("id"), usuarioId);
+    }
+    
+    // O usuário tem divisão na conta
+    public static Specification<Conta> comParticipante(Long usuarioId) {
+        if (usuarioId == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Subquery<Long> divisoes = query.subquery(Long.class);
+            var divisao = divisoes.from(Divisao.class);
+            divisoes.select(divisao.get("id"))
+                .where(cb.equal(divisao.get("usuario").get("id"), usuarioId),
+                       cb.equal(divisao.get("conta"), root));
+            return cb.exists(divisoes);
+        };
+    }
+    
+    // Criada pelo usuário ou com divisão dele
+    public static Specification<Conta> relacionadaAo(Long usuarioId) {
+        if (usuarioId == null) {
+            return null;
+        }
+        return criadaPor(usuarioId).or(comParticipante(usuarioId));
+    }
+    
+    public static Specification<Conta> paga(Boolean paga) {
+        if (paga == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("paga"), paga);
+    }
+    
+    public static Specification<Conta> comStatus(StatusConta status) {
+        if (status == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+    
+    // Período só vale com as duas datas; conta sem vencimento sempre passa
+    public static Specification<Conta> vencimentoNoPeriodo(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.or(
+            cb.isNull(root.get("vencimento")),
+            cb.between(root.get("vencimento"), inicio, fim));
+    }
+    
+    // Não paga e com vencimento anterior à data
+    public static Specification<Conta> vencidaEm(LocalDate data) {
+        return Specification.where(paga(false))
+            .and((root, query, cb) -> cb.lessThan(root.get("vencimento"), data));
+    }
+}
@@ -1,33 +1,130 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.DividaDTO;
 import com.example.demo.model.Divida;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface DividaRepository extends JpaRepository<Divida, Long> {
     
-    List<Divida> findByUsuarioDevedorId(Long usuarioDevedorId);
+    List<Divida> findByDataVencimentoBeforeAndPagaFalse(LocalDate data);
     
-    List<Divida> findByUsuarioCredorId(Long usuarioCredorId);
+    // Leituras já projetadas em DividaDTO (nomes de devedor e credor no mesmo SELECT)
+    @Query("SELECT new com.example.demo.dto.DividaDTO(d.id, d.descricao, d.valor, dv.id, dv.nome, cr.id, cr.nome, " +
+           "d.dataCriacao, d.dataVencimento, d.paga, d.dataPagamento, d.formaPagamento) " +
+           "FROM Divida d JOIN d.usuarioDevedor dv JOIN d.usuarioCredor cr " +
+           "WHERE d.id = :id")
+    Optional<DividaDTO> findResumoPorId(@Param("id") Long id);
     
-    List<Divida> findByUsuarioDevedorIdAndPaga(Long usuarioDevedorId, Boolean paga);
+    @Query("SELECT new com.example.demo.dto.DividaDTO(d.id, d.descricao, d.valor, dv.id, dv.nome, cr.id, cr.nome, " +
+           "d.dataCriacao, d.dataVencimento, d.paga, d.dataPagamento, d.formaPagamento) " +
+           "FROM Divida d JOIN d.usuarioDevedor dv JOIN d.usuarioCredor cr " +
+           "WHERE dv.id = :usuarioId AND (:paga IS NULL OR d.paga = :paga) ORDER BY d.id")
+    List<DividaDTO> findResumosDevendo(@Param("usuarioId") Long usuarioId, @Param("paga") Boolean paga);
     
-    List<Divida> findByUsuarioCredorIdAndPaga(Long usuarioCredorId, Boolean paga);
+    @Query("SELECT new com.example.demo.dto.DividaDTO(d.id, d.descricao, d.valor, dv.id, dv.nome, cr.id, cr.nome, " +
+           "d.dataCriacao, d.dataVencimento, d.paga, d.dataPagamento, d.formaPagamento) " +
+           "FROM Divida d JOIN d.usuarioDevedor dv JOIN d.usuarioCredor cr " +
+           "WHERE cr.id = :usuarioId AND (:paga IS NULL OR d.paga = :paga) ORDER BY d.id")
+    List<DividaDTO> findResumosRecebendo(@Param("usuarioId") Long usuarioId, @Param("paga") Boolean paga);
     
-    List<Divida> findByDataVencimentoBeforeAndPagaFalse(LocalDate data);
+    // Dívidas em que o usuário é devedor ou credor, das mais recentes para as mais antigas. Um ramo por
+    // ponta (cada um no seu índice) unidos por UNION ALL, em vez de "devedor = :id OR credor = :id",
+    // que impede o uso dos índices; o segundo ramo descarta a dívida consigo mesmo, já vinda do primeiro
+    @Query("SELECT d.id AS id, d.descricao AS descricao, d.valor AS valor, " +
+           "dv.id AS usuarioDevedorId, dv.nome AS nomeUsuarioDevedor, cr.id AS usuarioCredorId, cr.nome AS nomeUsuarioCredor, " +
+           "d.dataCriacao AS dataCriacao, d.dataVencimento AS dataVencimento, d.paga AS paga, " +
+           "d.dataPagamento AS dataPagamento, d.formaPagamento AS formaPagamento " +
+           "FROM Divida d JOIN d.usuarioDevedor dv JOIN d.usuarioCredor cr " +
+           "WHERE dv.id = :usuarioId " +
+           "AND (:paga IS NULL OR d.paga = :paga) " +
+           "AND (:antesDeId IS NULL OR d.id < :antesDeId) " +
+           "UNION ALL " +
+           "SELECT d.id AS id, d.descricao AS descricao, d.valor AS valor, " +
+           "dv.id AS usuarioDevedorId, dv.nome AS nomeUsuarioDevedor, cr.id AS usuarioCredorId, cr.nome AS nomeUsuarioCredor, " +
+           "d.dataCriacao AS dataCriacao, d.dataVencimento AS dataVencimento, d.paga AS paga, " +
+           "d.dataPagamento AS dataPagamento, d.formaPagamento AS formaPagamento " +
+           "FROM Divida d JOIN d.usuarioDevedor dv JOIN d.usuarioCredor cr " +
+           "WHERE cr.id = :usuarioId AND dv.id <> :usuarioId " +
+           "AND (:paga IS NULL OR d.paga = :paga) " +
+           "AND (:antesDeId IS NULL OR d.id < :antesDeId) " +
+           "ORDER BY id DESC")
+    List<ResumoDivida> findResumosDoUsuario(@Param("usuarioId") Long usuarioId,
+                                            @Param("paga") Boolean paga,
+                                            @Param("antesDeId") Long antesDeId,
+                                            Limit limite);
     
-    @Query("SELECT d FROM Divida d WHERE (d.usuarioDevedor.id = :usuarioId OR d.usuarioCredor.id = :usuarioId)")
-    List<Divida> findByUsuarioId(@Param("usuarioId") Long usuarioId);
+    // Métodos para notificações automáticas (o aviso usa o nome do credor)
+    @EntityGraph(attributePaths = "usuarioCredor")
+    List<Divida> findByPagaFalse();
     
-    @Query("SELECT d FROM Divida d WHERE (d.usuarioDevedor.id = :usuarioId OR d.usuarioCredor.id = :usuarioId) AND d.paga = :paga")
-    List<Divida> findByUsuarioIdAndPaga(@Param("usuarioId") Long usuarioId, @Param("paga") Boolean paga);
+    // Totais em aberto por par devedor/credor (usado na reconstrução do livro de saldos)
+    @Query("SELECT d.usuarioDevedor.id AS devedorId, d.usuarioCredor.id AS credorId, " +
+           "SUM(d.valor) AS total, COUNT(d) AS quantidade " +
+           "FROM Divida d " +
+           "WHERE d.paga = false AND d.usuarioDevedor.id <> d.usuarioCredor.id " +
+           "GROUP BY d.usuarioDevedor.id, d.usuarioCredor.id")
+    List<TotalPorPar> somarEmAbertoPorPar();
     
-    // Métodos para notificações automáticas
-    List<Divida> findByPagaFalse();
+    // Acerto avulso (/api/acertos): das dívidas pedidas, as em aberto em que o usuário é devedor ou credor
+    @Query("SELECT d.id FROM Divida d WHERE d.id IN :ids AND d.paga = false " +
+           "AND (d.usuarioDevedor.id = :usuarioId OR d.usuarioCredor.id = :usuarioId)")
+    List<Long> findIdsEmAbertoDoUsuario(@Param("ids") Collection<Long> ids, @Param("usuarioId") Long usuarioId);
+    
+    // Acerto avulso com um contato: dívidas em aberto entre os dois, nos dois sentidos
+    @Query("SELECT d.id FROM Divida d WHERE d.paga = false AND (" +
+           "(d.usuarioDevedor.id = :usuarioId AND d.usuarioCredor.id = :outroId) OR " +
+           "(d.usuarioDevedor.id = :outroId AND d.usuarioCredor.id = :usuarioId))")
+    List<Long> findIdsEmAbertoEntre(@Param("usuarioId") Long usuarioId, @Param("outroId") Long outroId);
+    
+    @Modifying
+    @Query("UPDATE Divida d SET d.paga = true, d.dataPagamento = :data, d.formaPagamento = :forma, d.versao = d.versao + 1 " +
+           "WHERE d.id IN :ids AND d.paga = false")
+    int marcarPagasPorIds(@Param("ids") Collection<Long> ids,
+                          @Param("data") LocalDateTime data,
+                          @Param("forma") String forma);
+    
+    @Query("SELECT d.usuarioDevedor.id AS devedorId, d.usuarioCredor.id AS credorId, " +
+           "SUM(d.valor) AS total, COUNT(d) AS quantidade " +
+           "FROM Divida d " +
+           "WHERE d.id IN :ids AND d.usuarioDevedor.id <> d.usuarioCredor.id " +
+           "GROUP BY d.usuarioDevedor.id, d.usuarioCredor.id")
+    List<TotalPorPar> somarPorParPorIds(@Param("ids") Collection<Long> ids);
+    
+    // Exportação do histórico (/api/export) em streaming: precisa de transação aberta
+    @Query("SELECT 'DIVIDA' AS tipo, d.id AS id, d.descricao AS descricao, d.valor AS valor, " +
+           "'DEVEDOR' AS papel, cr.id AS contraparteId, cr.nome AS contraparteNome, d.dataCriacao AS dataCriacao, " +
+           "d.dataVencimento AS vencimento, d.paga AS pago, d.dataPagamento AS dataPagamento, d.formaPagamento AS formaPagamento " +
+           "FROM Divida d JOIN d.usuarioCredor cr WHERE d.usuarioDevedor.id = :usuarioId ORDER BY d.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LinhaExportacao> streamDevendoParaExportacao(@Param("usuarioId") Long usuarioId);
+    
+    @Query("SELECT 'DIVIDA' AS tipo, d.id AS id, d.descricao AS descricao, d.valor AS valor, " +
+           "'CREDOR' AS papel, dv.id AS contraparteId, dv.nome AS contraparteNome, d.dataCriacao AS dataCriacao, " +
+           "d.dataVencimento AS vencimento, d.paga AS pago, d.dataPagamento AS dataPagamento, d.formaPagamento AS formaPagamento " +
+           "FROM Divida d JOIN d.usuarioDevedor dv WHERE d.usuarioCredor.id = :usuarioId AND dv.id <> :usuarioId ORDER BY d.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LinhaExportacao> streamRecebendoParaExportacao(@Param("usuarioId") Long usuarioId);
 }
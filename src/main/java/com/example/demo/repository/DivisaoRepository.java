@@ -1,26 +1,71 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.DivisaoDTO;
 import com.example.demo.model.Conta;
 import com.example.demo.model.Divisao;
 import com.example.demo.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface DivisaoRepository extends JpaRepository<Divisao, Long> {
     
-    List<Divisao> findByUsuario(Usuario usuario);
+    boolean existsByContaId(Long contaId);
     
-    List<Divisao> findByConta(Conta conta);
+    long countByContaId(Long contaId);
     
-    List<Divisao> findByPago(Boolean pago);
+    // Acerto avulso (/api/acertos): das divisões pedidas, as em aberto em que o usuário é devedor ou credor
+    @Query("SELECT d.id FROM Divisao d WHERE d.id IN :ids AND d.pago = false " +
+           "AND (d.usuario.id = :usuarioId OR d.conta.criador.id = :usuarioId)")
+    List<Long> findIdsEmAbertoDoUsuario(@Param("ids") Collection<Long> ids, @Param("usuarioId") Long usuarioId);
+    
+    // Acerto avulso com um contato: divisões em aberto entre os dois, nos dois sentidos
+    @Query("SELECT d.id FROM Divisao d WHERE d.pago = false AND (" +
+           "(d.usuario.id = :usuarioId AND d.conta.criador.id = :outroId) OR " +
+           "(d.usuario.id = :outroId AND d.conta.criador.id = :usuarioId))")
+    List<Long> findIdsEmAbertoEntre(@Param("usuarioId") Long usuarioId, @Param("outroId") Long outroId);
+    
+    @Modifying
+    @Query("UPDATE Divisao d SET d.pago = true, d.dataPagamento = :data, d.formaPagamento = :forma, d.versao = d.versao + 1 " +
+           "WHERE d.id IN :ids AND d.pago = false")
+    int marcarPagasPorIds(@Param("ids") Collection<Long> ids,
+                          @Param("data") LocalDateTime data,
+                          @Param("forma") String forma);
+    
+    @Query("SELECT d.usuario.id AS devedorId, c.criador.id AS credorId, " +
+           "SUM(d.valor) AS total, COUNT(d) AS quantidade " +
+           "FROM Divisao d JOIN d.conta c " +
+           "WHERE d.id IN :ids AND d.usuario.id <> c.criador.id " +
+           "GROUP BY d.usuario.id, c.criador.id")
+    List<TotalPorPar> somarPorParPorIds(@Param("ids") Collection<Long> ids);
     
-    List<Divisao> findByUsuarioAndPago(Usuario usuario, Boolean pago);
+    // Nova divisão da conta: totais em aberto por par das divisões que serão substituídas (baixa no livro)
+    @Query("SELECT d.usuario.id AS devedorId, c.criador.id AS credorId, " +
+           "SUM(d.valor) AS total, COUNT(d) AS quantidade " +
+           "FROM Divisao d JOIN d.conta c " +
+           "WHERE c.id = :contaId AND d.pago = false AND d.usuario.id <> c.criador.id " +
+           "GROUP BY d.usuario.id, c.criador.id")
+    List<TotalPorPar> somarEmAbertoPorParDaConta(@Param("contaId") Long contaId);
+    
+    // Remove todas as divisões da conta em uma única instrução (em vez de um DELETE por linha)
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Divisao d WHERE d.conta.id = :contaId")
+    int removerDaConta(@Param("contaId") Long contaId);
+    
+    List<Divisao> findByPago(Boolean pago);
     
     // Novos métodos para saldos
     List<Divisao> findByUsuarioIdAndPago(Long usuarioId, Boolean pago);
@@ -34,11 +79,98 @@ public interface DivisaoRepository extends JpaRepository<Divisao, Long> {
     @Query("SELECT SUM(d.valor) FROM Divisao d WHERE d.usuario = :usuario AND d.pago = false")
     BigDecimal calcularTotalDevidoPorUsuario(@Param("usuario") Usuario usuario);
     
-    @Query("SELECT d FROM Divisao d WHERE d.conta.criador = :usuario AND d.pago = false")
-    List<Divisao> findDivisoesPendentesParaReceber(@Param("usuario") Usuario usuario);
+    // Leituras já projetadas em DivisaoDTO (conta, devedor e credor no mesmo SELECT), sem carregar entidades
+    @Query("SELECT new com.example.demo.dto.DivisaoDTO(d.id, c.id, c.descricao, c.vencimento, d.valor, " +
+           "d.pago, d.dataPagamento, d.formaPagamento, u.id, u.nome, cr.id, cr.nome) " +
+           "FROM Divisao d JOIN d.conta c JOIN d.usuario u JOIN c.criador cr " +
+           "WHERE c.id = :contaId ORDER BY d.id")
+    List<DivisaoDTO> findResumosDaConta(@Param("contaId") Long contaId);
+    
+    // Páginas por cursor, das mais recentes para as mais antigas
+    @Query("SELECT new com.example.demo.dto.DivisaoDTO(d.id, c.id, c.descricao, c.vencimento, d.valor, " +
+           "d.pago, d.dataPagamento, d.formaPagamento, u.id, u.nome, cr.id, cr.nome) " +
+           "FROM Divisao d JOIN d.conta c JOIN d.usuario u JOIN c.criador cr " +
+           "WHERE u.id = :usuarioId " +
+           "AND (:pago IS NULL OR d.pago = :pago) " +
+           "AND (:antesDeId IS NULL OR d.id < :antesDeId) " +
+           "ORDER BY d.id DESC")
+    List<DivisaoDTO> findResumosDoUsuario(@Param("usuarioId") Long usuarioId,
+                                          @Param("pago") Boolean pago,
+                                          @Param("antesDeId") Long antesDeId,
+                                          Limit limite);
+    
+    @Query("SELECT new com.example.demo.dto.DivisaoDTO(d.id, c.id, c.descricao, c.vencimento, d.valor, " +
+           "d.pago, d.dataPagamento, d.formaPagamento, u.id, u.nome, cr.id, cr.nome) " +
+           "FROM Divisao d JOIN d.conta c JOIN d.usuario u JOIN c.criador cr " +
+           "WHERE cr.id = :usuarioId AND d.pago = false " +
+           "AND (:antesDeId IS NULL OR d.id < :antesDeId) " +
+           "ORDER BY d.id DESC")
+    List<DivisaoDTO> findResumosParaReceber(@Param("usuarioId") Long usuarioId,
+                                            @Param("antesDeId") Long antesDeId,
+                                            Limit limite);
+    
+    // Totais em aberto por par devedor/credor (usado na reconstrução do livro de saldos)
+    @Query("SELECT d.usuario.id AS devedorId, c.criador.id AS credorId, " +
+           "SUM(d.valor) AS total, COUNT(d) AS quantidade " +
+           "FROM Divisao d JOIN d.conta c " +
+           "WHERE d.pago = false AND d.usuario.id <> c.criador.id " +
+           "GROUP BY d.usuario.id, c.criador.id")
+    List<TotalPorPar> somarEmAbertoPorPar();
+    
+    // Acerto de grupo: totais em aberto por par nas contas do grupo. Só entram divisões em que devedor e
+    // criador da conta ainda participam do grupo (quem saiu acerta por fora, pelo pagamento individual).
+    // O escopo é resolvido pelo próprio grupo da conta, sem lista de participantes como parâmetro
+    @Query("SELECT d.usuario.id AS devedorId, c.criador.id AS credorId, " +
+           "SUM(d.valor) AS total, COUNT(d) AS quantidade " +
+           "FROM Divisao d JOIN d.conta c JOIN c.grupo g " +
+           "WHERE g.id = :grupoId AND d.pago = false AND d.usuario.id <> c.criador.id " +
+           "AND (d.usuario = g.criador OR d.usuario MEMBER OF g.membros) " +
+           "AND (c.criador = g.criador OR c.criador MEMBER OF g.membros) " +
+           "GROUP BY d.usuario.id, c.criador.id")
+    List<TotalPorPar> somarEmAbertoPorParNoGrupo(@Param("grupoId") Long grupoId);
+    
+    // Acerto de grupo: contas com divisões a baixar (mesmo escopo de somarEmAbertoPorParNoGrupo), em ordem de id
+    @Query("SELECT DISTINCT c.id FROM Divisao d JOIN d.conta c JOIN c.grupo g " +
+           "WHERE g.id = :grupoId AND d.pago = false " +
+           "AND (d.usuario = g.criador OR d.usuario MEMBER OF g.membros) " +
+           "AND (c.criador = g.criador OR c.criador MEMBER OF g.membros) " +
+           "ORDER BY c.id")
+    List<Long> findContaIdsEmAbertoNoGrupo(@Param("grupoId") Long grupoId);
+    
+    // Acerto de grupo: divisões a baixar nas contas já travadas (ContaRepository.travarEmOrdem), mesmo escopo.
+    // Inclui a parte do próprio criador, para a conta ficar quitada; somarPorParPorIds a deixa fora do livro
+    @Query("SELECT d.id FROM Divisao d JOIN d.conta c JOIN c.grupo g " +
+           "WHERE g.id = :grupoId AND c.id IN :contaIds AND d.pago = false " +
+           "AND (d.usuario = g.criador OR d.usuario MEMBER OF g.membros) " +
+           "AND (c.criador = g.criador OR c.criador MEMBER OF g.membros) " +
+           "ORDER BY d.id")
+    List<Long> findIdsEmAbertoNoGrupo(@Param("grupoId") Long grupoId,
+                                      @Param("contaIds") Collection<Long> contaIds);
     
     // Métodos para notificações automáticas
     List<Divisao> findByContaAndPagoFalse(Conta conta);
     
     List<Divisao> findByPagoFalse();
+    
+    // Exportação do histórico (/api/export) em streaming: precisa de transação aberta.
+    // Duas consultas (minhas partes / partes de outros nas minhas contas) para cada uma usar o seu índice.
+    @Query("SELECT 'DIVISAO' AS tipo, d.id AS id, c.id AS referenciaId, c.descricao AS descricao, d.valor AS valor, " +
+           "'DEVEDOR' AS papel, cr.id AS contraparteId, cr.nome AS contraparteNome, c.dataCriacao AS dataCriacao, " +
+           "c.vencimento AS vencimento, d.pago AS pago, d.dataPagamento AS dataPagamento, d.formaPagamento AS formaPagamento " +
+           "FROM Divisao d JOIN d.conta c JOIN c.criador cr WHERE d.usuario.id = :usuarioId ORDER BY d.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LinhaExportacao> streamDoUsuarioParaExportacao(@Param("usuarioId") Long usuarioId);
+    
+    @Query("SELECT 'DIVISAO' AS tipo, d.id AS id, c.id AS referenciaId, c.descricao AS descricao, d.valor AS valor, " +
+           "'CREDOR' AS papel, u.id AS contraparteId, u.nome AS contraparteNome, c.dataCriacao AS dataCriacao, " +
+           "c.vencimento AS vencimento, d.pago AS pago, d.dataPagamento AS dataPagamento, d.formaPagamento AS formaPagamento " +
+           "FROM Divisao d JOIN d.conta c JOIN d.usuario u WHERE c.criador.id = :usuarioId AND u.id <> :usuarioId ORDER BY d.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LinhaExportacao> streamAReceberParaExportacao(@Param("usuarioId") Long usuarioId);
 }
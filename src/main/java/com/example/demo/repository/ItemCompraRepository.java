@@ -3,13 +3,17 @@ package com.example.demo.repository;
 import com.example.demo.model.Compra;
 import com.example.demo.model.ItemCompra;
 import com.example.demo.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ItemCompraRepository extends JpaRepository<ItemCompra, Long> {
@@ -37,4 +41,26 @@ public interface ItemCompraRepository extends JpaRepository<ItemCompra, Long> {
     // Contar itens de uma compra
     @Query("SELECT COUNT(i) FROM ItemCompra i WHERE i.compra.id = :compraId")
     Long contarItensDaCompra(@Param("compraId") Long compraId);
+    
+    // Exportação do histórico (/api/export) em streaming: precisa de transação aberta
+    @Query("SELECT 'ITEM_COMPRA' AS tipo, i.id AS id, co.id AS referenciaId, CONCAT(co.descricao, ' - ', i.descricao) AS descricao, " +
+           "i.valor * i.quantidade AS valor, i.quantidade AS quantidade, 'DEVEDOR' AS papel, cr.id AS contraparteId, " +
+           "cr.nome AS contraparteNome, co.dataCriacao AS dataCriacao " +
+           "FROM ItemCompra i JOIN i.compra co JOIN co.usuarioCriador cr WHERE i.usuarioResponsavel.id = :usuarioId ORDER BY i.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LinhaExportacao> streamDoUsuarioParaExportacao(@Param("usuarioId") Long usuarioId);
+    
+    @Query("SELECT 'ITEM_COMPRA' AS tipo, i.id AS id, co.id AS referenciaId, CONCAT(co.descricao, ' - ', i.descricao) AS descricao, " +
+           "i.valor * i.quantidade AS valor, i.quantidade AS quantidade, 'CREDOR' AS papel, u.id AS contraparteId, " +
+           "u.nome AS contraparteNome, co.dataCriacao AS dataCriacao " +
+           "FROM ItemCompra i JOIN i.compra co JOIN i.usuarioResponsavel u " +
+           "WHERE co.usuarioCriador.id = :usuarioId AND u.id <> :usuarioId ORDER BY i.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LinhaExportacao> streamAReceberParaExportacao(@Param("usuarioId") Long usuarioId);
 }
@@ -0,0 +1,27 @@
+package com.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Linha do histórico exportado (/api/export), lida em streaming pelas consultas de exportação.
+ * Cada seção só preenche as colunas que tem (por alias na consulta); as demais ficam nulas.
+ */
+public interface LinhaExportacao {
+    String getTipo();
+    Object getId();              // Long, ou String nos pagamentos externos
+    Long getReferenciaId();      // Conta da divisão, compra do item, grupo da conta...
+    String getDescricao();
+    BigDecimal getValor();
+    Integer getQuantidade();
+    String getPapel();           // CRIADOR, DEVEDOR ou CREDOR do ponto de vista do usuário exportado
+    Long getContraparteId();
+    String getContraparteNome();
+    LocalDateTime getDataCriacao();
+    LocalDate getVencimento();
+    Boolean getPago();
+    Object getStatus();
+    LocalDateTime getDataPagamento();
+    String getFormaPagamento();
+}
@@ -1,14 +1,18 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.PagamentoExterno;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PagamentoExternoRepository extends JpaRepository<PagamentoExterno, String> {
@@ -57,4 +61,17 @@ public interface PagamentoExternoRepository extends JpaRepository<PagamentoExter
      * Busca pagamentos por status
      */
     List<PagamentoExterno> findByPagoAndDataExpiracaoAfter(Boolean pago, LocalDateTime dataExpiracao);
+    
+    /**
+     * Exportação do histórico (/api/export) em streaming: precisa de transação aberta
+     */
+    @Query("SELECT 'PAGAMENTO_EXTERNO' AS tipo, p.id AS id, p.contaId AS referenciaId, p.descricaoDespesa AS descricao, " +
+           "p.valor AS valor, 'CREDOR' AS papel, p.nomeParticipante AS contraparteNome, p.dataCriacao AS dataCriacao, " +
+           "p.dataVencimento AS vencimento, p.pago AS pago, p.dataPagamento AS dataPagamento, p.formaPagamento AS formaPagamento " +
+           "FROM PagamentoExterno p WHERE p.criadoPorId = :usuarioId ORDER BY p.dataCriacao, p.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LinhaExportacao> streamParaExportacao(@Param("usuarioId") Long usuarioId);
 }
@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Dívida já com os nomes de devedor e credor, lida pela consulta UNION ALL de DividaRepository
+ * (colunas por alias, que também servem de referência para o ORDER BY da união).
+ */
+public interface ResumoDivida {
+    Long getId();
+    String getDescricao();
+    BigDecimal getValor();
+    Long getUsuarioDevedorId();
+    String getNomeUsuarioDevedor();
+    Long getUsuarioCredorId();
+    String getNomeUsuarioCredor();
+    LocalDateTime getDataCriacao();
+    LocalDate getDataVencimento();
+    Boolean getPaga();
+    LocalDateTime getDataPagamento();
+    String getFormaPagamento();
+}
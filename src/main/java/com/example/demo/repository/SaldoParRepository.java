@@ -0,0 +1,34 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.SaldoPar;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SaldoParRepository extends JpaRepository<SaldoPar, Long> {
+    
+    Optional<SaldoPar> findByUsuarioAIdAndUsuarioBId(Long usuarioAId, Long usuarioBId);
+    
+    // Pares do usuário que ainda têm algo em aberto
+    @Query("SELECT s FROM SaldoPar s WHERE (s.usuarioAId = :usuarioId OR s.usuarioBId = :usuarioId) " +
+           "AND (s.abertas > 0 OR s.valor <> 0) ORDER BY s.id")
+    List<SaldoPar> findAbertosPorUsuario(@Param("usuarioId") Long usuarioId);
+    
+    // Ao remover um usuário todas as divisões e contas dele vão junto, então os pares dele zeram
+    @Modifying
+    @Query("DELETE FROM SaldoPar s WHERE s.usuarioAId = :usuarioId OR s.usuarioBId = :usuarioId")
+    int deleteByUsuario(@Param("usuarioId") Long usuarioId);
+    
+    // Usado pela reconstrução: trava o livro inteiro enquanto os totais são recalculados
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SaldoPar s")
+    List<SaldoPar> findAllParaReconstrucao();
+}
@@ -0,0 +1,25 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.TokenRevogado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevogadoRepository extends JpaRepository<TokenRevogado, String> {
+    
+    // Revogações ainda relevantes (token não expirou)
+    List<TokenRevogado> findByExpiraEmAfter(LocalDateTime agora);
+    
+    // Revogações feitas por outras instâncias desde a última sincronização
+    List<TokenRevogado> findByDataRevogacaoAfterAndExpiraEmAfter(LocalDateTime desde, LocalDateTime agora);
+    
+    @Modifying
+    @Query("DELETE FROM TokenRevogado t WHERE t.expiraEm < :agora")
+    int deleteExpirados(@Param("agora") LocalDateTime agora);
+}
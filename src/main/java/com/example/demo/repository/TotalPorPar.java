@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Total em aberto agrupado por par (devedor, credor).
+ */
+public interface TotalPorPar {
+    Long getDevedorId();
+    Long getCredorId();
+    BigDecimal getTotal();
+    Long getQuantidade();
+}
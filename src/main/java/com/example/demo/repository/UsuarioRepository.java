@@ -1,10 +1,20 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.UsuarioDTO;
 import com.example.demo.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
@@ -14,4 +24,44 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     boolean existsByEmail(String email);
     
     Optional<Usuario> findByChavePix(String chavePix);
+    
+    @Query("SELECT u.id FROM Usuario u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+    
+    // Leitura em streaming para montar o índice de emails (precisa de transação aberta)
+    @Query("SELECT u.email FROM Usuario u WHERE u.email IS NOT NULL")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<String> streamEmails();
+    
+    // Paginação por cursor: usa o índice da PK e não degrada em páginas altas como OFFSET
+    @Query("SELECT new com.example.demo.dto.UsuarioDTO(u.id, u.nome, u.email, u.chavePix) " +
+           "FROM Usuario u WHERE u.id > :aposId ORDER BY u.id")
+    List<UsuarioDTO> findPaginaAposId(@Param("aposId") Long aposId, Limit limite);
+    
+    // Dados básicos de vários usuários em uma consulta, sem carregar entidades
+    @Query("SELECT new com.example.demo.dto.UsuarioDTO(u.id, u.nome, u.email, u.chavePix) " +
+           "FROM Usuario u WHERE u.id IN :ids")
+    List<UsuarioDTO> findResumosPorIds(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT u.id FROM Usuario u WHERE u.id IN :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+    
+    // Exportação completa em streaming (precisa de transação aberta)
+    @Query("SELECT u FROM Usuario u ORDER BY u.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Usuario> streamTodosOrdenadosPorId();
+    
+    // Leitura em streaming para montar o índice de busca (precisa de transação aberta)
+    @Query("SELECT new com.example.demo.dto.UsuarioDTO(u.id, u.nome, u.email, u.chavePix) FROM Usuario u")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<UsuarioDTO> streamResumos();
 }
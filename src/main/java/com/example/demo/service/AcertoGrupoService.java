@@ -0,0 +1,247 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AcertoGrupoDTO;
+import com.example.demo.dto.UsuarioDTO;
+import com.example.demo.exception.NegocioException;
+import com.example.demo.exception.RecursoNaoEncontradoException;
+import com.example.demo.model.Grupo;
+import com.example.demo.repository.ContaRepository;
+import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.GrupoRepository;
+import com.example.demo.repository.TotalPorPar;
+import com.example.demo.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Acerto de contas de um grupo: reduz as divisões em aberto das contas do grupo a poucas transferências.
+ * Só entram divisões entre participantes atuais do grupo; dívidas avulsas não têm vínculo com o grupo
+ * e ficam de fora (são acertadas pelo /api/acertos, por quem é parte delas).
+ * As posições líquidas saem de consultas agregadas no banco (uma linha por par devedor/credor),
+ * então o custo não depende da quantidade de divisões em aberto.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AcertoGrupoService {
+    
+    static final String FORMA_PAGAMENTO_ACERTO = "ACERTO_GRUPO";
+    
+    // Ids por instrução (cláusula IN), abaixo do limite de parâmetros dos drivers
+    private static final int TAMANHO_LOTE = 500;
+    
+    private final GrupoRepository grupoRepository;
+    private final ContaRepository contaRepository;
+    private final DivisaoRepository divisaoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final UsuarioService usuarioService;
+    private final SaldoParService saldoParService;
+    private final NotificacaoService notificacaoService;
+    private final RetentativaOtimista retentativaOtimista;
+    
+    /**
+     * Transferência do plano de acerto, em centavos.
+     */
+    public record Transferencia(long deUsuarioId, long paraUsuarioId, long centavos) {
+    }
+    
+    @Transactional(readOnly = true)
+    public AcertoGrupoDTO calcularAcerto(Long grupoId, Long usuarioId) {
+        Grupo grupo = encontrarGrupoComAcesso(grupoId, usuarioId);
+        List<TotalPorPar> totais = divisaoRepository.somarEmAbertoPorParNoGrupo(grupoId);
+        return montarDTO(grupo, totais, false);
+    }
+    
+    /**
+     * Aplica o acerto: marca como pagas, com UPDATEs em massa, as divisões consideradas por calcularAcerto
+     * e devolve o plano correspondente ao que foi baixado. Refeito do zero em conflito de versão/trava;
+     * as notificações só saem depois do commit, para uma tentativa descartada não notificar.
+     */
+    public AcertoGrupoDTO aplicarAcerto(Long grupoId, Long usuarioId) {
+        AcertoAplicado aplicado = retentativaOtimista.executar("Acerto do grupo " + grupoId,
+            () -> aplicar(grupoId, usuarioId));
+        AcertoGrupoDTO acerto = aplicado.acerto();
+        
+        // Uma notificação por transferência para quem recebe
+        for (AcertoGrupoDTO.TransferenciaDTO transferencia : acerto.getTransferencias()) {
+            notificacaoService.notificarPagamentoRecebido(
+                transferencia.getParaUsuarioId(),
+                transferencia.getValor(),
+                transferencia.getDeNome(),
+                "Acerto do grupo " + acerto.getNomeGrupo()
+            );
+        }
+        
+        log.info("Acerto do grupo {} aplicado: {} divisão(ões), {} conta(s) quitada(s), {} transferência(s)",
+            grupoId, aplicado.divisoes(), aplicado.contas(), acerto.getTransferencias().size());
+        return acerto;
+    }
+    
+    private record AcertoAplicado(AcertoGrupoDTO acerto, int divisoes, int contas) {
+    }
+    
+    private AcertoAplicado aplicar(Long grupoId, Long usuarioId) {
+        Grupo grupo = encontrarGrupoComAcesso(grupoId, usuarioId);
+        LocalDateTime agora = LocalDateTime.now();
+        int divisoes = 0;
+        int contas = 0;
+        List<TotalPorPar> totais = new ArrayList<>();
+        
+        // Lotes de contas em ordem de id: cada lote é travado antes das suas divisões (mesma ordem do
+        // pagamento individual e do acerto avulso, sem deadlock) e os parâmetros IN ficam limitados.
+        // As divisões são escolhidas por id já com a conta travada e baixadas pelo mesmo caminho do acerto avulso
+        for (List<Long> contaIds : lotes(divisaoRepository.findContaIdsEmAbertoNoGrupo(grupoId))) {
+            contaRepository.travarEmOrdem(contaIds);
+            for (List<Long> divisaoIds : lotes(divisaoRepository.findIdsEmAbertoNoGrupo(grupoId, contaIds))) {
+                contaRepository.registrarDivisoesPagas(divisaoIds);
+                if (divisaoRepository.marcarPagasPorIds(divisaoIds, agora, FORMA_PAGAMENTO_ACERTO) != divisaoIds.size()) {
+                    throw new OptimisticLockingFailureException("Divisão do acerto do grupo paga por outra operação");
+                }
+                totais.addAll(divisaoRepository.somarPorParPorIds(divisaoIds));
+                divisoes += divisaoIds.size();
+            }
+            contas += (int) contaRepository.countQuitadas(contaIds);
+        }
+        saldoParService.baixarTotais(totais);
+        
+        return new AcertoAplicado(montarDTO(grupo, totais, true), divisoes, contas);
+    }
+    
+    private static List<List<Long>> lotes(List<Long> ids) {
+        List<List<Long>> lotes = new ArrayList<>((ids.size() + TAMANHO_LOTE - 1) / TAMANHO_LOTE);
+        for (int i = 0; i < ids.size(); i += TAMANHO_LOTE) {
+            lotes.add(ids.subList(i, Math.min(i + TAMANHO_LOTE, ids.size())));
+        }
+        return lotes;
+    }
+    
+    /**
+     * Casamento guloso: a cada passo o maior devedor paga ao maior credor o mínimo entre as duas posições.
+     * Pelo menos uma das duas zera a cada transferência, então saem no máximo (participantes - 1)
+     * transferências, em O(n log n).
+     *
+     * @param posicoes saldo líquido em centavos por usuário (positivo = tem a receber); a soma deve ser zero
+     */
+    public static List<Transferencia> planejar(Map<Long, Long> posicoes) {
+        PriorityQueue<long[]> credores = new PriorityQueue<>(AcertoGrupoService::compararPosicoes);
+        PriorityQueue<long[]> devedores = new PriorityQueue<>(AcertoGrupoService::compararPosicoes);
+        posicoes.forEach((usuarioId, centavos) -> {
+            if (centavos > 0) {
+                credores.add(new long[] {usuarioId, centavos});
+            } else if (centavos < 0) {
+                devedores.add(new long[] {usuarioId, -centavos});
+            }
+        });
+        
+        List<Transferencia> transferencias = new ArrayList<>(Math.max(0, credores.size() + devedores.size() - 1));
+        while (!credores.isEmpty() && !devedores.isEmpty()) {
+            long[] credor = credores.poll();
+            long[] devedor = devedores.poll();
+            long valor = Math.min(credor[1], devedor[1]);
+            transferencias.add(new Transferencia(devedor[0], credor[0], valor));
+            
+            credor[1] -= valor;
+            devedor[1] -= valor;
+            if (credor[1] > 0) {
+                credores.add(credor);
+            }
+            if (devedor[1] > 0) {
+                devedores.add(devedor);
+            }
+        }
+        return transferencias;
+    }
+    
+    // Maior valor primeiro; empate pelo menor id para o plano ser determinístico
+    private static int compararPosicoes(long[] a, long[] b) {
+        int cmp = Long.compare(b[1], a[1]);
+        return cmp != 0 ? cmp : Long.compare(a[0], b[0]);
+    }
+    
+    /**
+     * Posição líquida de cada usuário em centavos a partir dos totais por par devedor/credor.
+     */
+    public static Map<Long, Long> posicoesLiquidas(List<TotalPorPar> totais) {
+        Map<Long, Long> posicoes = new HashMap<>();
+        for (TotalPorPar total : totais) {
+            long centavos = paraCentavos(total.getTotal());
+            posicoes.merge(total.getCredorId(), centavos, Long::sum);
+            posicoes.merge(total.getDevedorId(), -centavos, Long::sum);
+        }
+        return posicoes;
+    }
+    
+    private AcertoGrupoDTO montarDTO(Grupo grupo, List<TotalPorPar> totais, boolean aplicado) {
+        List<Transferencia> plano = planejar(posicoesLiquidas(totais));
+        
+        Set<Long> envolvidos = new HashSet<>();
+        for (Transferencia t : plano) {
+            envolvidos.add(t.deUsuarioId());
+            envolvidos.add(t.paraUsuarioId());
+        }
+        Map<Long, UsuarioDTO> nomes = envolvidos.isEmpty()
+            ? Map.of()
+            : usuarioRepository.findResumosPorIds(envolvidos).stream()
+                .collect(Collectors.toMap(UsuarioDTO::getId, u -> u));
+        
+        long totalCentavos = 0;
+        List<AcertoGrupoDTO.TransferenciaDTO> transferencias = new ArrayList<>(plano.size());
+        for (Transferencia t : plano) {
+            totalCentavos += t.centavos();
+            transferencias.add(AcertoGrupoDTO.TransferenciaDTO.builder()
+                .deUsuarioId(t.deUsuarioId())
+                .deNome(nome(nomes, t.deUsuarioId()))
+                .paraUsuarioId(t.paraUsuarioId())
+                .paraNome(nome(nomes, t.paraUsuarioId()))
+                .valor(BigDecimal.valueOf(t.centavos(), 2))
+                .build());
+        }
+        
+        int itens = 0;
+        for (TotalPorPar total : totais) {
+            itens += total.getQuantidade().intValue();
+        }
+        
+        return AcertoGrupoDTO.builder()
+            .grupoId(grupo.getId())
+            .nomeGrupo(grupo.getNome())
+            .itensEmAberto(itens)
+            .totalMovimentado(BigDecimal.valueOf(totalCentavos, 2))
+            .aplicado(aplicado)
+            .transferencias(transferencias)
+            .build();
+    }
+    
+    private Grupo encontrarGrupoComAcesso(Long grupoId, Long usuarioId) {
+        Grupo grupo = grupoRepository.findById(grupoId)
+            .orElseThrow(() -> new RecursoNaoEncontradoException("Grupo", grupoId));
+        if (!grupoRepository.isUsuarioMembroDoGrupo(grupoId, usuarioService.encontrarUsuarioPorId(usuarioId))) {
+            throw new NegocioException("Você não tem acesso a este grupo");
+        }
+        return grupo;
+    }
+    
+    private static String nome(Map<Long, UsuarioDTO> nomes, Long usuarioId) {
+        UsuarioDTO usuario = nomes.get(usuarioId);
+        return usuario != null ? usuario.getNome() : null;
+    }
+    
+    private static long paraCentavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
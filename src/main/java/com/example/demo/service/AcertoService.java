@@ -0,0 +1,203 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AcertarContasDTO;
+import com.example.demo.dto.AcertoGrupoDTO;
+import com.example.demo.dto.ResultadoAcertoDTO;
+import com.example.demo.dto.UsuarioDTO;
+import com.example.demo.exception.NegocioException;
+import com.example.demo.repository.ContaRepository;
+import com.example.demo.repository.DividaRepository;
+import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.TotalPorPar;
+import com.example.demo.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Acerto avulso entre usuários: quita de uma vez várias divisões e dívidas (pelos ids ou tudo em aberto
+ * com um contato) numa única transação, com UPDATEs por conjunto de ids em vez de um por item,
+ * e manda uma única notificação de pagamento recebido por credor.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AcertoService {
+    
+    static final String FORMA_PAGAMENTO_PADRAO = "ACERTO";
+    
+    private final DivisaoRepository divisaoRepository;
+    private final DividaRepository dividaRepository;
+    private final ContaRepository contaRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final UsuarioService usuarioService;
+    private final SaldoParService saldoParService;
+    private final NotificacaoService notificacaoService;
+    private final RetentativaOtimista retentativaOtimista;
+    
+    // Refeito do zero se um dos itens for pago por outra operação no meio; notificações só depois do commit
+    public ResultadoAcertoDTO acertar(Long usuarioId, AcertarContasDTO acertarDTO) {
+        boolean temIds = !vazia(acertarDTO.getDivisaoIds()) || !vazia(acertarDTO.getDividaIds());
+        if (acertarDTO.getContraparteId() == null && !temIds) {
+            throw new NegocioException("Informe as divisões/dívidas a acertar ou o contraparteId");
+        }
+        if (acertarDTO.getContraparteId() != null && temIds) {
+            throw new NegocioException("Informe os ids ou o contraparteId, não os dois");
+        }
+        if (usuarioId.equals(acertarDTO.getContraparteId())) {
+            throw new NegocioException("Não é possível acertar contas consigo mesmo");
+        }
+        
+        ResultadoAcertoDTO resultado = retentativaOtimista.executar("Acerto do usuário " + usuarioId,
+            () -> aplicar(usuarioId, acertarDTO));
+        notificarCredores(usuarioId, resultado);
+        
+        log.info("Acerto do usuário {}: {} divisão(ões), {} dívida(s), {} conta(s) quitada(s), total {}",
+            usuarioId, resultado.getDivisoesPagas(), resultado.getDividasPagas(),
+            resultado.getContasQuitadas(), resultado.getTotalMovimentado());
+        return resultado;
+    }
+    
+    private ResultadoAcertoDTO aplicar(Long usuarioId, AcertarContasDTO acertarDTO) {
+        List<Long> divisaoIds;
+        List<Long> dividaIds;
+        if (acertarDTO.getContraparteId() != null) {
+            usuarioService.encontrarUsuarioPorId(acertarDTO.getContraparteId());
+            divisaoIds = divisaoRepository.findIdsEmAbertoEntre(usuarioId, acertarDTO.getContraparteId());
+            dividaIds = dividaRepository.findIdsEmAbertoEntre(usuarioId, acertarDTO.getContraparteId());
+            if (divisaoIds.isEmpty() && dividaIds.isEmpty()) {
+                throw new NegocioException("Não há divisões nem dívidas em aberto com este usuário");
+            }
+        } else {
+            Set<Long> divisoesPedidas = distintos(acertarDTO.getDivisaoIds());
+            Set<Long> dividasPedidas = distintos(acertarDTO.getDividaIds());
+            divisaoIds = divisoesPedidas.isEmpty() ? List.of() : validarIds("Divisões", divisoesPedidas,
+                divisaoRepository.findIdsEmAbertoDoUsuario(divisoesPedidas, usuarioId));
+            dividaIds = dividasPedidas.isEmpty() ? List.of() : validarIds("Dívidas", dividasPedidas,
+                dividaRepository.findIdsEmAbertoDoUsuario(dividasPedidas, usuarioId));
+        }
+        
+        LocalDateTime agora = LocalDateTime.now();
+        String forma = acertarDTO.getFormaPagamento() != null && !acertarDTO.getFormaPagamento().isBlank()
+            ? acertarDTO.getFormaPagamento().trim()
+            : FORMA_PAGAMENTO_PADRAO;
+        
+        List<TotalPorPar> totais = new ArrayList<>();
+        int contasQuitadas = 0;
+        if (!divisaoIds.isEmpty()) {
+            // Contadores das contas antes das divisões, na mesma ordem de travas do pagamento individual
+            contaRepository.registrarDivisoesPagas(divisaoIds);
+            if (divisaoRepository.marcarPagasPorIds(divisaoIds, agora, forma) != divisaoIds.size()) {
+                throw new OptimisticLockingFailureException("Divisão do acerto paga por outra operação");
+            }
+            totais.addAll(divisaoRepository.somarPorParPorIds(divisaoIds));
+            contasQuitadas = (int) contaRepository.countQuitadasDasDivisoes(divisaoIds);
+        }
+        if (!dividaIds.isEmpty()) {
+            if (dividaRepository.marcarPagasPorIds(dividaIds, agora, forma) != dividaIds.size()) {
+                throw new OptimisticLockingFailureException("Dívida do acerto paga por outra operação");
+            }
+            totais.addAll(dividaRepository.somarPorParPorIds(dividaIds));
+        }
+        saldoParService.baixarTotais(totais);
+        
+        return montarResultado(divisaoIds.size(), dividaIds.size(), contasQuitadas, totais);
+    }
+    
+    // Divisões e dívidas do mesmo par viram um pagamento só
+    private ResultadoAcertoDTO montarResultado(int divisoes, int dividas, int contasQuitadas, List<TotalPorPar> totais) {
+        Map<List<Long>, BigDecimal> porPar = new LinkedHashMap<>();
+        Set<Long> envolvidos = new HashSet<>();
+        for (TotalPorPar total : totais) {
+            porPar.merge(List.of(total.getDevedorId(), total.getCredorId()), total.getTotal(), BigDecimal::add);
+            envolvidos.add(total.getDevedorId());
+            envolvidos.add(total.getCredorId());
+        }
+        Map<Long, UsuarioDTO> nomes = envolvidos.isEmpty()
+            ? Map.of()
+            : usuarioRepository.findResumosPorIds(envolvidos).stream()
+                .collect(Collectors.toMap(UsuarioDTO::getId, u -> u));
+        
+        BigDecimal totalMovimentado = BigDecimal.ZERO;
+        List<AcertoGrupoDTO.TransferenciaDTO> pagamentos = new ArrayList<>(porPar.size());
+        for (Map.Entry<List<Long>, BigDecimal> par : porPar.entrySet()) {
+            Long devedorId = par.getKey().get(0);
+            Long credorId = par.getKey().get(1);
+            totalMovimentado = totalMovimentado.add(par.getValue());
+            pagamentos.add(AcertoGrupoDTO.TransferenciaDTO.builder()
+                .deUsuarioId(devedorId)
+                .deNome(nome(nomes, devedorId))
+                .paraUsuarioId(credorId)
+                .paraNome(nome(nomes, credorId))
+                .valor(par.getValue())
+                .build());
+        }
+        
+        return ResultadoAcertoDTO.builder()
+            .divisoesPagas(divisoes)
+            .dividasPagas(dividas)
+            .contasQuitadas(contasQuitadas)
+            .totalMovimentado(totalMovimentado)
+            .pagamentos(pagamentos)
+            .build();
+    }
+    
+    // Uma notificação por credor com o total recebido; quem fez o acerto não notifica a si mesmo
+    private void notificarCredores(Long usuarioId, ResultadoAcertoDTO resultado) {
+        Map<Long, BigDecimal> totalPorCredor = new LinkedHashMap<>();
+        Map<Long, Set<String>> pagadoresPorCredor = new LinkedHashMap<>();
+        for (AcertoGrupoDTO.TransferenciaDTO pagamento : resultado.getPagamentos()) {
+            if (pagamento.getParaUsuarioId().equals(usuarioId)) {
+                continue;
+            }
+            totalPorCredor.merge(pagamento.getParaUsuarioId(), pagamento.getValor(), BigDecimal::add);
+            if (pagamento.getDeNome() != null) {
+                pagadoresPorCredor.computeIfAbsent(pagamento.getParaUsuarioId(), id -> new TreeSet<>())
+                    .add(pagamento.getDeNome());
+            }
+        }
+        
+        totalPorCredor.forEach((credorId, total) -> notificacaoService.notificarPagamentoRecebido(
+            credorId,
+            total,
+            String.join(", ", pagadoresPorCredor.getOrDefault(credorId, Set.of())),
+            "Acerto de contas"
+        ));
+    }
+    
+    private static List<Long> validarIds(String tipo, Set<Long> pedidos, List<Long> encontrados) {
+        if (encontrados.size() != pedidos.size()) {
+            Set<Long> faltando = new TreeSet<>(pedidos);
+            faltando.removeAll(encontrados);
+            throw new NegocioException(tipo + " não encontradas, já pagas ou sem relação com você: " + faltando);
+        }
+        return encontrados;
+    }
+    
+    private static Set<Long> distintos(Collection<Long> ids) {
+        return ids == null ? Set.of() : new LinkedHashSet<>(ids);
+    }
+    
+    private static boolean vazia(Collection<Long> ids) {
+        return ids == null || ids.isEmpty();
+    }
+    
+    private static String nome(Map<Long, UsuarioDTO> nomes, Long usuarioId) {
+        UsuarioDTO usuario = nomes.get(usuarioId);
+        return usuario != null ? usuario.getNome() : null;
+    }
+}
@@ -8,22 +8,24 @@ import com.example.demo.exception.NegocioException;
 import com.example.demo.model.Usuario;
 import com.example.demo.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
     
     private final UsuarioRepository usuarioRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UsuarioService usuarioService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SenhaService senhaService;
     private final JwtService jwtService;
     
-    @Transactional
+    // Sem @Transactional: o hash da senha pode esperar na fila do pool de BCrypt
+    // e não deve segurar uma conexão do banco enquanto isso
     public AuthResponse register(RegisterRequest request) {
         // Verificar se o email já existe
-        if (usuarioRepository.findByEmail(request.getEmail()).isPresent()) {
+        if (usuarioService.emailCadastrado(request.getEmail())) {
             throw new NegocioException("Email já está em uso");
         }
         
@@ -31,11 +33,13 @@ public class AuthService {
         Usuario usuario = Usuario.builder()
                 .nome(request.getNome())
                 .email(request.getEmail())
-                .senha(passwordEncoder.encode(request.getSenha()))
+                .senha(senhaService.codificar(request.getSenha()))
                 .chavePix(request.getChavePix())
                 .build();
         
-        usuario = usuarioRepository.save(usuario);
+        // A constraint unique barra um cadastro concorrente com o mesmo email
+        usuario = usuarioService.salvarComEmailUnico(usuario);
+        eventPublisher.publishEvent(UsuarioAlteradoEvent.criado(usuario));
         
         // Gerar token
         String token = jwtService.generateToken(usuario.getId(), usuario.getEmail());
@@ -53,7 +57,7 @@ public class AuthService {
     
     public AuthResponse login(LoginRequest request) {
         // Buscar usuário por email
-        Usuario usuario = usuarioRepository.findByEmail(request.getEmail())
+        Usuario usuario = usuarioService.encontrarPorEmail(request.getEmail())
                 .orElseThrow(() -> new NegocioException("Credenciais inválidas"));
         
         // Verificar se a senha foi definida
@@ -62,10 +66,17 @@ public class AuthService {
         }
         
         // Verificar senha
-        if (!passwordEncoder.matches(request.getSenha(), usuario.getSenha())) {
+        if (!senhaService.verificar(request.getSenha(), usuario.getSenha())) {
             throw new NegocioException("Credenciais inválidas");
         }
         
+        // Hash gerado com outro custo: regrava com o custo atual aproveitando a senha em mãos
+        if (senhaService.precisaRehash(usuario.getSenha())) {
+            usuario.setSenha(senhaService.codificar(request.getSenha()));
+            usuario = usuarioRepository.save(usuario);
+            senhaService.registrarRehash();
+        }
+        
         // Gerar token
         String token = jwtService.generateToken(usuario.getId(), usuario.getEmail());
         
@@ -81,13 +92,18 @@ public class AuthService {
     }
     
     public String refreshToken(String currentToken) {
-        if (!jwtService.isTokenValid(currentToken)) {
-            throw new NegocioException("Token inválido");
-        }
+        JwtPrincipal principal = jwtService.validarToken(currentToken)
+                .orElseThrow(() -> new NegocioException("Token inválido"));
         
-        Long userId = jwtService.getUserIdFromToken(currentToken);
-        String email = jwtService.getEmailFromToken(currentToken);
+        String novoToken = jwtService.generateToken(principal.getUserId(), principal.getEmail());
         
-        return jwtService.generateToken(userId, email);
+        // O token antigo deixa de valer assim que o novo é emitido
+        jwtService.revogarToken(currentToken);
+        
+        return novoToken;
+    }
+    
+    public void logout(String token) {
+        jwtService.revogarToken(token);
     }
 }
@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom simples para strings, seguro para uso concorrente.
+ * "Não contém" é uma resposta exata; "pode conter" precisa ser confirmado na fonte real.
+ */
+final class BloomFilter {
+    
+    private final AtomicLongArray bits;
+    private final long numeroBits;
+    private final int numeroHashes;
+    
+    BloomFilter(long insercoesEsperadas, double taxaFalsoPositivo) {
+        long n = Math.max(1, insercoesEsperadas);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(taxaFalsoPositivo) / (ln2 * ln2));
+        m = Math.max(64, Math.min(m, (long) Integer.MAX_VALUE * 64));
+        
+        this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+        this.numeroBits = (long) bits.length() * 64;
+        this.numeroHashes = Math.max(1, (int) Math.round((double) numeroBits / n * ln2));
+    }
+    
+    void adicionar(String valor) {
+        long h1 = hash(valor, 0x9E3779B97F4A7C15L);
+        long h2 = hash(valor, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < numeroHashes; i++) {
+            long posicao = Math.floorMod(h1 + i * h2, numeroBits);
+            int indice = (int) (posicao >>> 6);
+            long mascara = 1L << (posicao & 63);
+            long atual;
+            do {
+                atual = bits.get(indice);
+                if ((atual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(indice, atual, atual | mascara));
+        }
+    }
+    
+    boolean podeConter(String valor) {
+        long h1 = hash(valor, 0x9E3779B97F4A7C15L);
+        long h2 = hash(valor, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < numeroHashes; i++) {
+            long posicao = Math.floorMod(h1 + i * h2, numeroBits);
+            if ((bits.get((int) (posicao >>> 6)) & (1L << (posicao & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // FNV-1a 64 bits com semente, finalizado com o mix do SplitMix64
+    private static long hash(String valor, long semente) {
+        long h = 0xCBF29CE484222325L ^ semente;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001B3L;
+        }
+        h ^= (h >>> 30);
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= (h >>> 27);
+        h *= 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache limitado de tokens já verificados, indexado pelo SHA-256 do token
+ * (o token em si não fica guardado em memória).
+ * Entradas expiradas são ignoradas na leitura e removidas quando o cache enche.
+ */
+class CacheTokens {
+    
+    private final Map<String, JwtPrincipal> entradas = new ConcurrentHashMap<>();
+    private final int capacidadeMaxima;
+    
+    CacheTokens(int capacidadeMaxima) {
+        this.capacidadeMaxima = capacidadeMaxima;
+    }
+    
+    JwtPrincipal buscar(String token, long agoraMillis) {
+        if (capacidadeMaxima <= 0) {
+            return null;
+        }
+        String chave = digest(token);
+        JwtPrincipal principal = entradas.get(chave);
+        if (principal != null && principal.isExpirado(agoraMillis)) {
+            entradas.remove(chave, principal);
+            return null;
+        }
+        return principal;
+    }
+    
+    void guardar(String token, JwtPrincipal principal, long agoraMillis) {
+        if (capacidadeMaxima <= 0) {
+            return;
+        }
+        if (entradas.size() >= capacidadeMaxima) {
+            liberarEspaco(agoraMillis);
+        }
+        entradas.put(digest(token), principal);
+    }
+    
+    void limpar() {
+        entradas.clear();
+    }
+    
+    int tamanho() {
+        return entradas.size();
+    }
+    
+    private void liberarEspaco(long agoraMillis) {
+        // Primeiro remove o que já expirou
+        entradas.values().removeIf(p -> p.isExpirado(agoraMillis));
+        
+        // Se ainda estiver cheio, descarta uma parte arbitrária das entradas
+        if (entradas.size() >= capacidadeMaxima) {
+            int remover = Math.max(1, capacidadeMaxima / 10);
+            Iterator<String> it = entradas.keySet().iterator();
+            while (remover-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+    
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Dinheiro;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cálculos puros de divisão de contas (sem acesso a banco).
+ * Usado pelo DivisaoService e pelos benchmarks.
+ * As contas são feitas em centavos (long); a soma das partes é sempre exatamente o total.
+ */
+public final class CalculadoraDivisao {
+    
+    // Casas usadas para transformar os percentuais (ex.: 0.3333) em pesos inteiros
+    private static final int ESCALA_PERCENTUAL = 6;
+    
+    private CalculadoraDivisao() {
+    }
+    
+    /**
+     * Valores da divisão igualitária. Os centavos que não dividem por igual
+     * vão para as primeiras partes (ex.: 100,00 / 3 = 33,34 + 33,33 + 33,33).
+     */
+    public static List<BigDecimal> valoresIguais(BigDecimal valorTotal, int partes) {
+        return paraBigDecimal(Dinheiro.alocar(Dinheiro.centavos(valorTotal), partes));
+    }
+    
+    /**
+     * Valores de cada parte na divisão por porcentagem, pelo método do maior resto.
+     */
+    public static List<BigDecimal> valoresPorPercentual(BigDecimal valorTotal, List<BigDecimal> percentuais) {
+        long[] pesos = new long[percentuais.size()];
+        for (int i = 0; i < pesos.length; i++) {
+            pesos[i] = percentuais.get(i).movePointRight(ESCALA_PERCENTUAL).longValue();
+        }
+        return paraBigDecimal(Dinheiro.alocar(Dinheiro.centavos(valorTotal), pesos));
+    }
+    
+    public static BigDecimal somar(List<BigDecimal> valores) {
+        BigDecimal soma = BigDecimal.ZERO;
+        for (BigDecimal valor : valores) {
+            soma = soma.add(valor);
+        }
+        return soma;
+    }
+    
+    /**
+     * Na divisão com valores explícitos, a soma precisa ser exatamente o valor da conta.
+     */
+    public static boolean somaConfere(BigDecimal valorTotal, List<BigDecimal> valores) {
+        return Dinheiro.somarCentavos(valores) == Dinheiro.centavos(valorTotal);
+    }
+    
+    private static List<BigDecimal> paraBigDecimal(long[] centavos) {
+        List<BigDecimal> valores = new ArrayList<>(centavos.length);
+        for (long valor : centavos) {
+            valores.add(Dinheiro.paraBigDecimal(valor));
+        }
+        return valores;
+    }
+}
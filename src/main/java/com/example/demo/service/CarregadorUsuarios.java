@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.RecursoNaoEncontradoException;
+import com.example.demo.model.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Carregamento de usuários com memória por requisição (identity map).
+ * Dentro de uma requisição HTTP cada usuário é buscado no máximo uma vez, e vários
+ * ids são resolvidos com um único SELECT ... IN. Fora de requisições (jobs agendados,
+ * tarefas @Async) não há memória compartilhada e toda chamada vai ao banco.
+ */
+@Component
+@RequiredArgsConstructor
+class CarregadorUsuarios {
+    
+    private static final String ATRIBUTO_MEMO = CarregadorUsuarios.class.getName() + ".memo";
+    
+    private final UsuarioRepository usuarioRepository;
+    
+    Usuario buscar(Long id) {
+        Map<Long, Usuario> memo = memoDaRequisicao();
+        if (memo != null) {
+            Usuario emMemoria = memo.get(id);
+            if (emMemoria != null) {
+                return emMemoria;
+            }
+        }
+        
+        Usuario usuario = usuarioRepository.findById(id)
+            .orElseThrow(() -> new RecursoNaoEncontradoException("Usuário", id));
+        if (memo != null) {
+            memo.put(id, usuario);
+        }
+        return usuario;
+    }
+    
+    /**
+     * Resolve todos os ids de uma vez. O mapa devolvido mantém a ordem dos ids informados.
+     * Lança RecursoNaoEncontradoException se algum id não existir.
+     */
+    Map<Long, Usuario> buscarTodos(Collection<Long> ids) {
+        Set<Long> distintos = new LinkedHashSet<>(ids);
+        Map<Long, Usuario> memo = memoDaRequisicao();
+        
+        List<Long> faltando = new ArrayList<>();
+        for (Long id : distintos) {
+            if (memo == null || !memo.containsKey(id)) {
+                faltando.add(id);
+            }
+        }
+        
+        Map<Long, Usuario> carregados = new HashMap<>();
+        if (!faltando.isEmpty()) {
+            for (Usuario usuario : usuarioRepository.findAllById(faltando)) {
+                carregados.put(usuario.getId(), usuario);
+            }
+            if (memo != null) {
+                memo.putAll(carregados);
+            }
+        }
+        
+        Map<Long, Usuario> resultado = new LinkedHashMap<>();
+        for (Long id : distintos) {
+            Usuario usuario = memo != null && memo.containsKey(id) ? memo.get(id) : carregados.get(id);
+            if (usuario == null) {
+                throw new RecursoNaoEncontradoException("Usuário", id);
+            }
+            resultado.put(id, usuario);
+        }
+        return resultado;
+    }
+    
+    void esquecer(Long id) {
+        Map<Long, Usuario> memo = memoDaRequisicao();
+        if (memo != null) {
+            memo.remove(id);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<Long, Usuario> memoDaRequisicao() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return null;
+        }
+        Map<Long, Usuario> memo = (Map<Long, Usuario>) atributos.getAttribute(ATRIBUTO_MEMO, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<>();
+            atributos.setAttribute(ATRIBUTO_MEMO, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memo;
+    }
+}
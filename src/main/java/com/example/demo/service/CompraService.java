@@ -4,6 +4,7 @@ import com.example.demo.dto.*;
 import com.example.demo.exception.NegocioException;
 import com.example.demo.exception.RecursoNaoEncontradoException;
 import com.example.demo.model.Compra;
+import com.example.demo.model.Dinheiro;
 import com.example.demo.model.ItemCompra;
 import com.example.demo.model.Usuario;
 import com.example.demo.repository.CompraRepository;
@@ -17,6 +18,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,10 +34,11 @@ public class CompraService {
     public CompraDTO criarCompra(CriarCompraDTO criarCompraDTO) {
         Usuario usuarioCriador = usuarioService.encontrarUsuarioPorId(criarCompraDTO.getUsuarioCriadorId());
         
-        // Validar se todos os usuários responsáveis existem
-        for (CriarCompraDTO.CriarItemCompraDTO item : criarCompraDTO.getItens()) {
-            usuarioService.encontrarUsuarioPorId(item.getUsuarioResponsavelId());
-        }
+        // Validar se todos os usuários responsáveis existem (uma única consulta)
+        Map<Long, Usuario> responsaveis = usuarioService.encontrarUsuariosPorIds(
+            criarCompraDTO.getItens().stream()
+                .map(CriarCompraDTO.CriarItemCompraDTO::getUsuarioResponsavelId)
+                .collect(Collectors.toList()));
         
         // Criar a compra
         LocalDate dataCompra = criarCompraDTO.getDataCompra() != null ? 
@@ -54,7 +57,7 @@ public class CompraService {
         // Criar os itens
         List<ItemCompra> itens = criarCompraDTO.getItens().stream()
             .map(itemDTO -> {
-                Usuario usuarioResponsavel = usuarioService.encontrarUsuarioPorId(itemDTO.getUsuarioResponsavelId());
+                Usuario usuarioResponsavel = responsaveis.get(itemDTO.getUsuarioResponsavelId());
                 
                 return ItemCompra.builder()
                     .descricao(itemDTO.getDescricao())
@@ -179,9 +182,11 @@ public class CompraService {
             
             // Se não for o próprio criador da compra
             if (!usuarioResponsavel.getId().equals(compra.getUsuarioCriador().getId())) {
-                BigDecimal valorTotal = itensDoUsuario.stream()
-                    .map(ItemCompra::getValorTotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+                long centavos = 0;
+                for (ItemCompra item : itensDoUsuario) {
+                    centavos += item.getValorTotalCentavos();
+                }
+                BigDecimal valorTotal = Dinheiro.paraBigDecimal(centavos);
                 
                 // Criar dívida
                 DividaDTO dividaDTO = new DividaDTO();
@@ -197,60 +202,6 @@ public class CompraService {
     }
     
     private CompraDTO converterParaDTO(Compra compra) {
-        CompraDTO dto = CompraDTO.builder()
-            .id(compra.getId())
-            .descricao(compra.getDescricao())
-            .dataCompra(compra.getDataCompra())
-            .dataCriacao(compra.getDataCriacao())
-            .usuarioCriadorId(compra.getUsuarioCriador().getId())
-            .finalizada(compra.getFinalizada())
-            .observacoes(compra.getObservacoes())
-            .build();
-        
-        // Converter usuário criador
-        dto.setUsuarioCriador(UsuarioDTO.builder()
-            .id(compra.getUsuarioCriador().getId())
-            .nome(compra.getUsuarioCriador().getNome())
-            .email(compra.getUsuarioCriador().getEmail())
-            .chavePix(compra.getUsuarioCriador().getChavePix())
-            .build());
-        
-        // Converter itens
-        if (compra.getItens() != null) {
-            List<ItemCompraDTO> itensDTO = compra.getItens().stream()
-                .map(this::converterItemParaDTO)
-                .collect(Collectors.toList());
-            dto.setItens(itensDTO);
-            
-            // Calcular campos agregados
-            dto.setTotalItens(itensDTO.size());
-            dto.setValorTotal(itensDTO.stream()
-                .map(ItemCompraDTO::getValorTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-        }
-        
-        return dto;
-    }
-    
-    private ItemCompraDTO converterItemParaDTO(ItemCompra item) {
-        ItemCompraDTO dto = ItemCompraDTO.builder()
-            .id(item.getId())
-            .descricao(item.getDescricao())
-            .valor(item.getValor())
-            .quantidade(item.getQuantidade())
-            .usuarioResponsavelId(item.getUsuarioResponsavel().getId())
-            .observacoes(item.getObservacoes())
-            .valorTotal(item.getValorTotal())
-            .build();
-        
-        // Converter usuário responsável
-        dto.setUsuarioResponsavel(UsuarioDTO.builder()
-            .id(item.getUsuarioResponsavel().getId())
-            .nome(item.getUsuarioResponsavel().getNome())
-            .email(item.getUsuarioResponsavel().getEmail())
-            .chavePix(item.getUsuarioResponsavel().getChavePix())
-            .build());
-        
-        return dto;
+        return CompraDTO.fromModel(compra);
     }
 }
@@ -1,13 +1,21 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.ContaDTO;
+import com.example.demo.dto.PaginaCursorDTO;
 import com.example.demo.dto.UsuarioDTO;
+import com.example.demo.exception.NegocioException;
 import com.example.demo.exception.RecursoNaoEncontradoException;
 import com.example.demo.model.Conta;
 import com.example.demo.model.StatusConta;
 import com.example.demo.model.Usuario;
 import com.example.demo.repository.ContaRepository;
+import com.example.demo.repository.ContaSpecifications;
+import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.GrupoRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,8 +28,12 @@ import java.util.stream.Collectors;
 public class ContaService {
     
     private final ContaRepository contaRepository;
+    private final DivisaoRepository divisaoRepository;
+    private final GrupoRepository grupoRepository;
     private final UsuarioService usuarioService;
     private final NotificacaoService notificacaoService;
+    private final SaldoParService saldoParService;
+    private final RetentativaOtimista retentativaOtimista;
     
     @Transactional
     public ContaDTO criarConta(ContaDTO contaDTO) {
@@ -58,10 +70,8 @@ public class ContaService {
     
     @Transactional(readOnly = true)
     public List<ContaDTO> listarContasDoUsuario(Long usuarioId) {
-        Usuario usuario = usuarioService.encontrarUsuarioPorId(usuarioId);
-        return contaRepository.findContasRelacionadasAoUsuario(usuario).stream()
-            .map(this::converterParaDTO)
-            .collect(Collectors.toList());
+        usuarioService.encontrarUsuarioPorId(usuarioId);
+        return buscar(ContaSpecifications.relacionadaAo(usuarioId));
     }
     
     @Transactional(readOnly = true)
@@ -73,19 +83,13 @@ public class ContaService {
     
     @Transactional(readOnly = true)
     public List<ContaDTO> listarContasVencidas() {
-        return contaRepository.findByVencimentoBefore(LocalDate.now()).stream()
-            .filter(conta -> !conta.getPaga())
-            .map(this::converterParaDTO)
-            .collect(Collectors.toList());
+        return buscar(ContaSpecifications.vencidaEm(LocalDate.now()));
     }
     
     @Transactional(readOnly = true)
     public List<ContaDTO> listarContasVencidasDoUsuario(Long usuarioId) {
-        return contaRepository.findByVencimentoBefore(LocalDate.now()).stream()
-            .filter(conta -> !conta.getPaga())
-            .filter(conta -> conta.getCriador().getId().equals(usuarioId))
-            .map(this::converterParaDTO)
-            .collect(Collectors.toList());
+        return buscar(Specification.where(ContaSpecifications.criadaPor(usuarioId))
+            .and(ContaSpecifications.vencidaEm(LocalDate.now())));
     }
     
     // RF05: Filtros por período
@@ -105,26 +109,19 @@ public class ContaService {
     
     // RF05: Método para filtrar contas específicas de um usuário
     @Transactional(readOnly = true)
-    public List<ContaDTO> listarContasDoUsuarioComFiltros(Long usuarioId, Boolean paga, LocalDate inicio, LocalDate fim) {
-        Usuario usuario = usuarioService.encontrarUsuarioPorId(usuarioId);
-        
-        // Buscar contas relacionadas ao usuário (criadas por ele ou onde ele participa)
-        List<Conta> contasRelacionadas = contaRepository.findContasRelacionadasAoUsuario(usuario);
+    public List<ContaDTO> listarContasDoUsuarioComFiltros(Long usuarioId, Boolean paga, StatusConta status,
+                                                          LocalDate inicio, LocalDate fim) {
+        usuarioService.encontrarUsuarioPorId(usuarioId);
         
-        return contasRelacionadas.stream()
-            .filter(conta -> {
-                // Filtrar por status se especificado
-                if (paga != null && !conta.getPaga().equals(paga)) {
-                    return false;
-                }
-                
-                // Filtrar por período se especificado
-                if (inicio != null && fim != null && conta.getVencimento() != null) {
-                    return !conta.getVencimento().isBefore(inicio) && !conta.getVencimento().isAfter(fim);
-                }
-                
-                return true;
-            })
+        // Contas relacionadas ao usuário (criadas por ele ou onde ele participa), filtradas no banco
+        return buscar(Specification.where(ContaSpecifications.relacionadaAo(usuarioId))
+            .and(ContaSpecifications.paga(paga))
+            .and(ContaSpecifications.comStatus(status))
+            .and(ContaSpecifications.vencimentoNoPeriodo(inicio, fim)));
+    }
+    
+    private List<ContaDTO> buscar(Specification<Conta> filtro) {
+        return contaRepository.findAll(filtro, Sort.by("id")).stream()
             .map(this::converterParaDTO)
             .collect(Collectors.toList());
     }
@@ -138,23 +135,28 @@ public class ContaService {
         conta.setValor(contaDTO.getValor());
         conta.setVencimento(contaDTO.getVencimento());
         
-        if (contaDTO.getPaga() != null) {
+        if (contaDTO.getPaga() != null && !contaDTO.getPaga().equals(conta.getPaga())) {
+            exigirSemDivisoes(conta);
             conta.setPaga(contaDTO.getPaga());
+            conta.setStatus(contaDTO.getPaga() ? StatusConta.PAGA : StatusConta.PENDENTE);
         }
         
         Conta contaAtualizada = contaRepository.save(conta);
         return converterParaDTO(contaAtualizada);
     }
     
-    @Transactional
+    // Refeita em conflito de versão (ex.: pagamento de divisão atualizando os contadores da conta ao mesmo tempo)
     public ContaDTO marcarComoPaga(Long id) {
-        Conta conta = contaRepository.findById(id)
-            .orElseThrow(() -> new RecursoNaoEncontradoException("Conta", id));
-        
-        conta.setPaga(true);
-        conta.setStatus(StatusConta.PAGA);
-        Conta contaAtualizada = contaRepository.save(conta);
-        return converterParaDTO(contaAtualizada);
+        return retentativaOtimista.executar("Pagamento da conta " + id, () -> {
+            Conta conta = contaRepository.findById(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Conta", id));
+            exigirSemDivisoes(conta);
+            
+            conta.setPaga(true);
+            conta.setStatus(StatusConta.PAGA);
+            Conta contaAtualizada = contaRepository.save(conta);
+            return converterParaDTO(contaAtualizada);
+        });
     }
     
     @Transactional
@@ -176,6 +178,7 @@ public class ContaService {
     public ContaDTO marcarComoPendente(Long id) {
         Conta conta = contaRepository.findById(id)
             .orElseThrow(() -> new RecursoNaoEncontradoException("Conta", id));
+        exigirSemDivisoes(conta);
         
         conta.setPaga(false);
         conta.setStatus(StatusConta.PENDENTE);
@@ -183,12 +186,20 @@ public class ContaService {
         return converterParaDTO(contaAtualizada);
     }
     
+    // Com divisões, paga/status vêm dos contadores (pagamento das divisões, acertos, verificação de integridade);
+    // marcar à mão ficaria divergente e seria desfeito pela reconciliação
+    private void exigirSemDivisoes(Conta conta) {
+        if (divisaoRepository.existsByContaId(conta.getId())) {
+            throw new NegocioException("A conta tem divisões: o pagamento é registrado pelas divisões");
+        }
+    }
+    
     @Transactional
     public void deletarConta(Long id) {
-        if (!contaRepository.existsById(id)) {
-            throw new RecursoNaoEncontradoException("Conta", id);
-        }
-        contaRepository.deleteById(id);
+        Conta conta = encontrarContaPorId(id);
+        // As divisões são removidas em cascata; tira do livro de saldos as que estavam em aberto
+        saldoParService.baixarDivisoes(conta.getDivisoes());
+        contaRepository.delete(conta);
     }
     
     // Método auxiliar para encontrar conta por ID (para uso interno)
@@ -199,13 +210,28 @@ public class ContaService {
     
     @Transactional(readOnly = true)
     public List<ContaDTO> listarContasDoGrupo(Long grupoId, Boolean paga) {
-        // Primeiro, vamos usar uma consulta simples sem injetar GrupoService
-        // para evitar dependência circular
-        return contaRepository.findAll().stream()
-                .filter(conta -> conta.getGrupo() != null && conta.getGrupo().getId().equals(grupoId))
-                .filter(conta -> paga == null || conta.getPaga().equals(paga))
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+        return contaRepository.findResumosDoGrupo(grupoId, null, paga, null, null, null, Limit.unlimited());
+    }
+    
+    // Extrato do grupo paginado por cursor (mais recentes primeiro), com filtros opcionais
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<ContaDTO> listarPaginaDoGrupo(Long grupoId, Long usuarioId, Long antesDeId, int limite,
+                                                        Boolean paga, StatusConta status,
+                                                        LocalDate inicio, LocalDate fim) {
+        // GrupoRepository direto (e não GrupoService) para evitar dependência circular
+        if (!grupoRepository.existsById(grupoId)) {
+            throw new RecursoNaoEncontradoException("Grupo", grupoId);
+        }
+        if (!grupoRepository.isUsuarioMembroDoGrupo(grupoId, usuarioService.encontrarUsuarioPorId(usuarioId))) {
+            throw new NegocioException("Você não tem acesso a este grupo");
+        }
+        
+        int tamanho = PaginaCursorDTO.tamanho(limite);
+        
+        // Busca um item a mais só para saber se existe próxima página
+        List<ContaDTO> itens = contaRepository.findResumosDoGrupo(
+            grupoId, antesDeId, paga, status, inicio, fim, Limit.of(tamanho + 1));
+        return PaginaCursorDTO.de(itens, tamanho, ContaDTO::getId);
     }
     
     private ContaDTO converterParaDTO(Conta conta) {
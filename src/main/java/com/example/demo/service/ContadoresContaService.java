@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ContaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Verificação de integridade dos contadores das contas (divisoesPendentes / valorPago) contra a tabela
+ * de divisões (e o paga/status derivados deles). Os contadores são mantidos pelos UPDATEs condicionais de quem cria, paga ou remove divisões;
+ * esta rotina só acha e corrige o que escapou (ex.: alteração manual no banco), em lotes por id,
+ * cada um na sua transação.
+ */
+@Slf4j
+@Service
+public class ContadoresContaService {
+    
+    private final ContaRepository contaRepository;
+    private final TransactionTemplate transacao;
+    private final int tamanhoLote;
+    
+    public ContadoresContaService(ContaRepository contaRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${contas.contadores.tamanho-lote:500}") int tamanhoLote) {
+        this.contaRepository = contaRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = Math.max(1, tamanhoLote);
+    }
+    
+    /**
+     * @return quantidade de contas com contadores corrigidos
+     */
+    @Scheduled(cron = "${contas.contadores.reconciliacao-cron:0 45 3 * * *}")
+    public int reconciliar() {
+        long inicio = System.currentTimeMillis();
+        long aposId = 0L;
+        int corrigidas = 0;
+        
+        while (true) {
+            List<Long> ids = contaRepository.findIdsComContadoresDivergentes(aposId, Limit.of(tamanhoLote));
+            if (ids.isEmpty()) {
+                break;
+            }
+            // Trava as contas e só então recalcula a partir das divisões: um pagamento em andamento
+            // termina antes e entra na contagem, em vez de ser desfeito pelo recálculo
+            Integer alteradas = transacao.execute(status -> {
+                contaRepository.travarEmOrdem(ids);
+                return contaRepository.recalcularContadores(ids);
+            });
+            corrigidas += alteradas != null ? alteradas : 0;
+            log.warn("Contadores divergentes corrigidos nas contas {}..{} ({} conta(s))",
+                ids.get(0), ids.get(ids.size() - 1), ids.size());
+            
+            if (ids.size() < tamanhoLote) {
+                break;
+            }
+            aposId = ids.get(ids.size() - 1);
+        }
+        
+        log.info("Contadores das contas verificados: {} conta(s) corrigida(s) em {} ms",
+            corrigidas, System.currentTimeMillis() - inicio);
+        return corrigidas;
+    }
+}
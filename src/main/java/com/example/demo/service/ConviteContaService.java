@@ -6,8 +6,8 @@ import com.example.demo.dto.CriarConviteDTO;
 import com.example.demo.exception.RecursoNaoEncontradoException;
 import com.example.demo.model.*;
 import com.example.demo.repository.ConviteContaRepository;
-import com.example.demo.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,7 +26,7 @@ public class ConviteContaService {
     private final ConviteContaRepository conviteRepository;
     private final ContaService contaService;
     private final UsuarioService usuarioService;
-    private final UsuarioRepository usuarioRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final DivisaoService divisaoService;
     private final NotificacaoService notificacaoService;
     
@@ -76,11 +76,11 @@ public class ConviteContaService {
         ConviteConta conviteSalvo = conviteRepository.save(convite);
         
         // Verificar se o email já é um usuário cadastrado para notificar
-        Optional<Usuario> usuarioExistente = usuarioRepository.findByEmail(criarConviteDTO.getEmailConvidado());
-        if (usuarioExistente.isPresent()) {
+        Optional<Long> usuarioExistenteId = usuarioService.encontrarIdPorEmail(criarConviteDTO.getEmailConvidado());
+        if (usuarioExistenteId.isPresent()) {
             // Notificar o usuário sobre o convite
             notificacaoService.notificarConviteRecebido(
-                usuarioExistente.get().getId(),
+                usuarioExistenteId.get(),
                 conviteSalvo.getId(),
                 usuarioConvidante.getNome(),
                 conta.getDescricao(),
@@ -116,7 +116,7 @@ public class ConviteContaService {
         }
         
         // Verificar se usuário já existe pelo email
-        Optional<Usuario> usuarioExistente = usuarioRepository.findByEmail(convite.getEmailConvidado());
+        Optional<Usuario> usuarioExistente = usuarioService.encontrarPorEmail(convite.getEmailConvidado());
         Usuario usuarioConvidado;
         
         if (usuarioExistente.isPresent()) {
@@ -133,7 +133,8 @@ public class ConviteContaService {
                 .chavePix(aceitarConviteDTO.getChavePix())
                 .build();
             
-            usuarioConvidado = usuarioRepository.save(usuarioConvidado);
+            usuarioConvidado = usuarioService.salvarComEmailUnico(usuarioConvidado);
+            eventPublisher.publishEvent(UsuarioAlteradoEvent.criado(usuarioConvidado));
         }
         
         // Atualizar convite
@@ -1,11 +1,15 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.DividaDTO;
+import com.example.demo.dto.PaginaCursorDTO;
+import com.example.demo.exception.NegocioException;
 import com.example.demo.model.Divida;
 import com.example.demo.model.Usuario;
 import com.example.demo.repository.DividaRepository;
+import com.example.demo.repository.ResumoDivida;
 import com.example.demo.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +24,8 @@ public class DividaService {
     
     private final DividaRepository dividaRepository;
     private final UsuarioRepository usuarioRepository;
+    private final SaldoParService saldoParService;
+    private final RetentativaOtimista retentativaOtimista;
     
     @Transactional
     public DividaDTO criarDivida(DividaDTO dividaDTO) {
@@ -39,82 +45,75 @@ public class DividaService {
         divida.setPaga(false);
         
         Divida dividaSalva = dividaRepository.save(divida);
+        saldoParService.registrarDivida(dividaSalva);
         return converterParaDTO(dividaSalva);
     }
     
     @Transactional(readOnly = true)
     public DividaDTO buscarPorId(Long id) {
-        Divida divida = dividaRepository.findById(id)
+        return dividaRepository.findResumoPorId(id)
             .orElseThrow(() -> new RuntimeException("Dívida não encontrada"));
-        return converterParaDTO(divida);
     }
     
     @Transactional(readOnly = true)
     public List<DividaDTO> listarDividasDoUsuario(Long usuarioId, Boolean paga) {
-        List<Divida> dividas;
-        
-        if (paga != null) {
-            dividas = dividaRepository.findByUsuarioIdAndPaga(usuarioId, paga);
-        } else {
-            dividas = dividaRepository.findByUsuarioId(usuarioId);
-        }
-        
-        return dividas.stream()
+        return dividaRepository.findResumosDoUsuario(usuarioId, paga, null, Limit.unlimited()).stream()
             .map(this::converterParaDTO)
             .collect(Collectors.toList());
     }
     
     @Transactional(readOnly = true)
-    public List<DividaDTO> listarDividasDevidas(Long usuarioId, Boolean paga) {
-        List<Divida> dividas;
-        
-        if (paga != null) {
-            dividas = dividaRepository.findByUsuarioDevedorIdAndPaga(usuarioId, paga);
-        } else {
-            dividas = dividaRepository.findByUsuarioDevedorId(usuarioId);
-        }
+    public PaginaCursorDTO<DividaDTO> listarPaginaDoUsuario(Long usuarioId, Boolean paga, Long antesDeId, int limite) {
+        int tamanho = PaginaCursorDTO.tamanho(limite);
         
-        return dividas.stream()
+        // Busca um item a mais só para saber se existe próxima página
+        List<DividaDTO> itens = dividaRepository.findResumosDoUsuario(usuarioId, paga, antesDeId, Limit.of(tamanho + 1))
+            .stream()
             .map(this::converterParaDTO)
             .collect(Collectors.toList());
+        return PaginaCursorDTO.de(itens, tamanho, DividaDTO::getId);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<DividaDTO> listarDividasDevidas(Long usuarioId, Boolean paga) {
+        return dividaRepository.findResumosDevendo(usuarioId, paga);
     }
     
     @Transactional(readOnly = true)
     public List<DividaDTO> listarDividasAReceber(Long usuarioId, Boolean paga) {
-        List<Divida> dividas;
-        
-        if (paga != null) {
-            dividas = dividaRepository.findByUsuarioCredorIdAndPaga(usuarioId, paga);
-        } else {
-            dividas = dividaRepository.findByUsuarioCredorId(usuarioId);
-        }
-        
-        return dividas.stream()
-            .map(this::converterParaDTO)
-            .collect(Collectors.toList());
+        return dividaRepository.findResumosRecebendo(usuarioId, paga);
     }
     
-    @Transactional
+    // Refeita em conflito de versão (ex.: acerto de grupo baixando a mesma dívida ao mesmo tempo)
     public DividaDTO marcarComoPaga(Long dividaId, String formaPagamento) {
-        Divida divida = dividaRepository.findById(dividaId)
-            .orElseThrow(() -> new RuntimeException("Dívida não encontrada"));
-        
-        divida.setPaga(true);
-        divida.setDataPagamento(LocalDateTime.now());
-        divida.setFormaPagamento(formaPagamento);
-        
-        Divida dividaAtualizada = dividaRepository.save(divida);
-        return converterParaDTO(dividaAtualizada);
+        return retentativaOtimista.executar("Pagamento da dívida " + dividaId, () -> {
+            Divida divida = dividaRepository.findById(dividaId)
+                .orElseThrow(() -> new RuntimeException("Dívida não encontrada"));
+            
+            // Sem esta checagem um segundo pagamento baixaria o saldo do par duas vezes
+            if (divida.getPaga()) {
+                throw new NegocioException("Esta dívida já foi marcada como paga");
+            }
+            
+            saldoParService.baixarDivida(divida);
+            divida.setPaga(true);
+            divida.setDataPagamento(LocalDateTime.now());
+            divida.setFormaPagamento(formaPagamento);
+            
+            Divida dividaAtualizada = dividaRepository.save(divida);
+            return converterParaDTO(dividaAtualizada);
+        });
     }
     
     @Transactional
     public void deletarDivida(Long id) {
-        if (!dividaRepository.existsById(id)) {
-            throw new RuntimeException("Dívida não encontrada");
-        }
-        dividaRepository.deleteById(id);
+        Divida divida = dividaRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Dívida não encontrada"));
+        saldoParService.baixarDivida(divida);
+        dividaRepository.delete(divida);
     }
     
+    // Caminho de escrita: a dívida recém-gravada, com devedor e credor já carregados por quem a gravou
     private DividaDTO converterParaDTO(Divida divida) {
         DividaDTO dto = new DividaDTO();
         dto.setId(divida.getId());
@@ -131,4 +130,21 @@ public class DividaService {
         dto.setFormaPagamento(divida.getFormaPagamento());
         return dto;
     }
+    
+    private DividaDTO converterParaDTO(ResumoDivida resumo) {
+        return new DividaDTO(
+            resumo.getId(),
+            resumo.getDescricao(),
+            resumo.getValor(),
+            resumo.getUsuarioDevedorId(),
+            resumo.getNomeUsuarioDevedor(),
+            resumo.getUsuarioCredorId(),
+            resumo.getNomeUsuarioCredor(),
+            resumo.getDataCriacao(),
+            resumo.getDataVencimento(),
+            resumo.getPaga(),
+            resumo.getDataPagamento(),
+            resumo.getFormaPagamento()
+        );
+    }
 }
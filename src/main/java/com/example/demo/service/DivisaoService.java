@@ -1,115 +1,117 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.DivisaoContaDTO;
+import com.example.demo.dto.DivisaoDTO;
 import com.example.demo.dto.DividirPorcentagemDTO;
 import com.example.demo.dto.DivisaoPorcentualDTO;
 import com.example.demo.dto.MarcarPagamentoDTO;
+import com.example.demo.dto.PaginaCursorDTO;
+import com.example.demo.dto.ResultadoDivisaoDTO;
+import com.example.demo.dto.UsuarioDTO;
 import com.example.demo.exception.NegocioException;
 import com.example.demo.exception.RecursoNaoEncontradoException;
 import com.example.demo.model.Conta;
 import com.example.demo.model.Divisao;
 import com.example.demo.model.Usuario;
+import com.example.demo.repository.ContaRepository;
 import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.TotalPorPar;
+import com.example.demo.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DivisaoService {
     
     private final DivisaoRepository divisaoRepository;
+    private final ContaRepository contaRepository;
+    private final UsuarioRepository usuarioRepository;
     private final ContaService contaService;
     private final UsuarioService usuarioService;
     private final NotificacaoService notificacaoService;
+    private final SaldoParService saldoParService;
+    private final RetentativaOtimista retentativaOtimista;
     
     @Transactional
     public Divisao salvarDivisao(Divisao divisao) {
-        return divisaoRepository.save(divisao);
+        boolean paga = Boolean.TRUE.equals(divisao.getPago());
+        contaRepository.somarContadores(divisao.getConta().getId(), paga ? 0 : 1,
+            paga ? divisao.getValor() : BigDecimal.ZERO);
+        Divisao divisaoSalva = divisaoRepository.save(divisao);
+        saldoParService.registrarDivisoes(List.of(divisaoSalva));
+        return divisaoSalva;
     }
     
     @Transactional
-    public void dividirConta(DivisaoContaDTO divisaoContaDTO) {
+    public ResultadoDivisaoDTO dividirConta(DivisaoContaDTO divisaoContaDTO, boolean simular) {
         Conta conta = contaService.encontrarContaPorId(divisaoContaDTO.getContaId());
         
         // Validar se a soma das divisões é igual ao valor da conta
-        BigDecimal somaValores = divisaoContaDTO.getUsuarios().stream()
+        List<BigDecimal> valores = divisaoContaDTO.getUsuarios().stream()
             .map(DivisaoContaDTO.DivisaoUsuarioDTO::getValor)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+            .collect(Collectors.toList());
         
-        if (somaValores.compareTo(conta.getValor()) != 0) {
+        if (!CalculadoraDivisao.somaConfere(conta.getValor(), valores)) {
             throw new NegocioException("A soma das divisões deve ser igual ao valor total da conta");
         }
         
-        // Remover divisões existentes (se houver)
-        List<Divisao> divisoesExistentes = divisaoRepository.findByConta(conta);
-        divisaoRepository.deleteAll(divisoesExistentes);
-        
-        // Criar novas divisões
-        for (DivisaoContaDTO.DivisaoUsuarioDTO divisaoUsuario : divisaoContaDTO.getUsuarios()) {
-            Usuario usuario = usuarioService.encontrarUsuarioPorId(divisaoUsuario.getUsuarioId());
-            
-            Divisao divisao = Divisao.builder()
-                .conta(conta)
-                .usuario(usuario)
-                .valor(divisaoUsuario.getValor())
-                .pago(false)
-                .build();
-            
-            divisaoRepository.save(divisao);
-        }
+        List<Long> usuarioIds = divisaoContaDTO.getUsuarios().stream()
+            .map(DivisaoContaDTO.DivisaoUsuarioDTO::getUsuarioId)
+            .collect(Collectors.toList());
+        return substituirDivisoes(conta, usuarioIds, valores, simular);
     }
     
     @Transactional
-    public void dividirContaIgualmente(Long contaId, List<Long> usuarioIds) {
+    public ResultadoDivisaoDTO dividirContaIgualmente(Long contaId, List<Long> usuarioIds, boolean simular) {
         Conta conta = contaService.encontrarContaPorId(contaId);
         
         if (usuarioIds.isEmpty()) {
             throw new NegocioException("É necessário pelo menos um usuário para dividir a conta");
         }
         
-        BigDecimal valorPorPessoa = conta.getValor().divide(
-            BigDecimal.valueOf(usuarioIds.size()), 2, BigDecimal.ROUND_HALF_UP);
-        
-        // Remover divisões existentes (se houver)
-        List<Divisao> divisoesExistentes = divisaoRepository.findByConta(conta);
-        divisaoRepository.deleteAll(divisoesExistentes);
+        // Rateio em centavos: a soma das partes fecha exatamente com o valor da conta
+        List<BigDecimal> valores = CalculadoraDivisao.valoresIguais(conta.getValor(), usuarioIds.size());
         
-        // Criar divisões iguais
-        for (Long usuarioId : usuarioIds) {
-            Usuario usuario = usuarioService.encontrarUsuarioPorId(usuarioId);
-            
-            Divisao divisao = Divisao.builder()
-                .conta(conta)
-                .usuario(usuario)
-                .valor(valorPorPessoa)
-                .pago(false)
-                .build();
-            
-            divisaoRepository.save(divisao);
+        return substituirDivisoes(conta, usuarioIds, valores, simular);
+    }
+    
+    // Leituras por projeção: uma consulta só, sem carregar conta/usuários; a existência
+    // só é conferida quando a lista vem vazia (para manter o 404)
+    @Transactional(readOnly = true)
+    public List<DivisaoDTO> listarDivisoesDaConta(Long contaId) {
+        List<DivisaoDTO> divisoes = divisaoRepository.findResumosDaConta(contaId);
+        if (divisoes.isEmpty() && !contaRepository.existsById(contaId)) {
+            throw new RecursoNaoEncontradoException("Conta", contaId);
         }
+        return divisoes;
     }
     
     @Transactional(readOnly = true)
-    public List<Divisao> listarDivisoesDaConta(Long contaId) {
-        Conta conta = contaService.encontrarContaPorId(contaId);
-        return divisaoRepository.findByConta(conta);
+    public List<DivisaoDTO> listarDivisoesDoUsuario(Long usuarioId, Boolean pago) {
+        List<DivisaoDTO> divisoes = divisaoRepository.findResumosDoUsuario(usuarioId, pago, null, Limit.unlimited());
+        exigirUsuarioSeVazia(usuarioId, divisoes);
+        return divisoes;
     }
     
     @Transactional(readOnly = true)
-    public List<Divisao> listarDivisoesDoUsuario(Long usuarioId, Boolean pago) {
-        Usuario usuario = usuarioService.encontrarUsuarioPorId(usuarioId);
-        
-        if (pago != null) {
-            return divisaoRepository.findByUsuarioAndPago(usuario, pago);
-        }
-        
-        return divisaoRepository.findByUsuario(usuario);
+    public PaginaCursorDTO<DivisaoDTO> listarPaginaDoUsuario(Long usuarioId, Boolean pago, Long antesDeId, int limite) {
+        int tamanho = PaginaCursorDTO.tamanho(limite);
+        List<DivisaoDTO> itens = divisaoRepository.findResumosDoUsuario(usuarioId, pago, antesDeId, Limit.of(tamanho + 1));
+        exigirUsuarioSeVazia(usuarioId, itens);
+        return PaginaCursorDTO.de(itens, tamanho, DivisaoDTO::getId);
     }
     
     @Transactional(readOnly = true)
@@ -120,43 +122,53 @@ public class DivisaoService {
     }
     
     @Transactional(readOnly = true)
-    public List<Divisao> listarDivisoesPendentesParaReceber(Long usuarioId) {
-        Usuario usuario = usuarioService.encontrarUsuarioPorId(usuarioId);
-        return divisaoRepository.findDivisoesPendentesParaReceber(usuario);
+    public List<DivisaoDTO> listarDivisoesPendentesParaReceber(Long usuarioId) {
+        List<DivisaoDTO> divisoes = divisaoRepository.findResumosParaReceber(usuarioId, null, Limit.unlimited());
+        exigirUsuarioSeVazia(usuarioId, divisoes);
+        return divisoes;
     }
     
-    @Transactional
-    public void marcarDivisaoComoPaga(Long divisaoId) {
-        Divisao divisao = divisaoRepository.findById(divisaoId)
-            .orElseThrow(() -> new RecursoNaoEncontradoException("Divisão", divisaoId));
-        
-        divisao.setPago(true);
-        divisao.setDataPagamento(LocalDateTime.now());
-        divisaoRepository.save(divisao);
-        
-        // Verificar se todas as divisões da conta foram pagas
-        List<Divisao> divisoesDaConta = divisaoRepository.findByConta(divisao.getConta());
-        boolean todasPagas = divisoesDaConta.stream().allMatch(Divisao::getPago);
-        
-        if (todasPagas) {
-            // Marcar a conta como paga
-            contaService.marcarComoPaga(divisao.getConta().getId());
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<DivisaoDTO> listarPaginaParaReceber(Long usuarioId, Long antesDeId, int limite) {
+        int tamanho = PaginaCursorDTO.tamanho(limite);
+        List<DivisaoDTO> itens = divisaoRepository.findResumosParaReceber(usuarioId, antesDeId, Limit.of(tamanho + 1));
+        exigirUsuarioSeVazia(usuarioId, itens);
+        return PaginaCursorDTO.de(itens, tamanho, DivisaoDTO::getId);
+    }
+    
+    private void exigirUsuarioSeVazia(Long usuarioId, List<DivisaoDTO> divisoes) {
+        if (divisoes.isEmpty() && !usuarioRepository.existsById(usuarioId)) {
+            throw new RecursoNaoEncontradoException("Usuário", usuarioId);
         }
+    }
+    
+    public void marcarDivisaoComoPaga(Long divisaoId) {
+        pagarDivisao(divisaoId, LocalDateTime.now(), null);
+    }
+    
+    // RF10: Método aprimorado para marcar pagamento com detalhes
+    public void marcarDivisaoComoPaga(Long divisaoId, MarcarPagamentoDTO pagamentoDTO) {
+        pagarDivisao(divisaoId, pagamentoDTO.getDataPagamento(), pagamentoDTO.getFormaPagamento());
+    }
+    
+    // Pagamento numa transação refeita em caso de conflito de versão; a notificação só sai
+    // depois do commit, para uma tentativa descartada não notificar
+    private void pagarDivisao(Long divisaoId, LocalDateTime dataPagamento, String formaPagamento) {
+        PagamentoDivisao pagamento = retentativaOtimista.executar("Pagamento da divisão " + divisaoId,
+            () -> registrarPagamento(divisaoId, dataPagamento, formaPagamento));
         
         // Notificar pagamento recebido ao criador da conta
-        if (!divisao.getUsuario().getId().equals(divisao.getConta().getCriador().getId())) {
+        if (!pagamento.pagadorId().equals(pagamento.credorId())) {
             notificacaoService.notificarPagamentoRecebido(
-                divisao.getConta().getCriador().getId(),
-                divisao.getValor(),
-                divisao.getUsuario().getNome(),
-                divisao.getConta().getDescricao()
+                pagamento.credorId(),
+                pagamento.valor(),
+                pagamento.pagadorNome(),
+                pagamento.descricaoConta()
             );
         }
     }
     
-    // RF10: Método aprimorado para marcar pagamento com detalhes
-    @Transactional
-    public void marcarDivisaoComoPaga(Long divisaoId, MarcarPagamentoDTO pagamentoDTO) {
+    private PagamentoDivisao registrarPagamento(Long divisaoId, LocalDateTime dataPagamento, String formaPagamento) {
         Divisao divisao = divisaoRepository.findById(divisaoId)
             .orElseThrow(() -> new RecursoNaoEncontradoException("Divisão", divisaoId));
         
@@ -164,45 +176,53 @@ public class DivisaoService {
             throw new NegocioException("Esta divisão já foi marcada como paga");
         }
         
+        // Contadores da conta primeiro (trava a linha da conta até o commit): decrementa as pendentes e,
+        // na mesma instrução, marca a conta como PAGA na última ou PARCIALMENTE_PAGA nas demais
+        Conta conta = divisao.getConta();
+        atualizarContadoresNoPagamento(conta.getId(), divisao.getValor());
+        
+        saldoParService.baixarDivisoes(List.of(divisao));
         divisao.setPago(true);
-        divisao.setDataPagamento(pagamentoDTO.getDataPagamento());
-        divisao.setFormaPagamento(pagamentoDTO.getFormaPagamento());
+        divisao.setDataPagamento(dataPagamento);
+        divisao.setFormaPagamento(formaPagamento);
         divisaoRepository.save(divisao);
         
-        // Verificar se todas as divisões da conta foram pagas
-        List<Divisao> divisoesDaConta = divisaoRepository.findByConta(divisao.getConta());
-        boolean todasPagas = divisoesDaConta.stream().allMatch(Divisao::getPago);
-        
-        if (todasPagas) {
-            // Marcar a conta como paga
-            contaService.marcarComoPaga(divisao.getConta().getId());
-        }
-        
-        // Notificar pagamento recebido ao criador da conta
-        if (!divisao.getUsuario().getId().equals(divisao.getConta().getCriador().getId())) {
-            notificacaoService.notificarPagamentoRecebido(
-                divisao.getConta().getCriador().getId(),
-                divisao.getValor(),
-                divisao.getUsuario().getNome(),
-                divisao.getConta().getDescricao()
-            );
+        return new PagamentoDivisao(
+            divisao.getUsuario().getId(),
+            divisao.getUsuario().getNome(),
+            conta.getCriador().getId(),
+            divisao.getValor(),
+            conta.getDescricao()
+        );
+    }
+    
+    private void atualizarContadoresNoPagamento(Long contaId, BigDecimal valor) {
+        if (contaRepository.registrarDivisaoPaga(contaId, valor) == 0) {
+            // Contador zerado com divisão em aberto: fora de sincronia; recalcula esta conta e aplica de novo
+            log.warn("Contadores da conta {} fora de sincronia no pagamento de divisão, recalculando", contaId);
+            contaRepository.recalcularContadores(List.of(contaId));
+            contaRepository.registrarDivisaoPaga(contaId, valor);
         }
     }
     
+    private record PagamentoDivisao(Long pagadorId, String pagadorNome, Long credorId,
+                                    BigDecimal valor, String descricaoConta) {
+    }
+    
     @Transactional
-    public void dividirContaPorPorcentagem(DividirPorcentagemDTO dividirDTO) {
+    public ResultadoDivisaoDTO dividirContaPorPorcentagem(DividirPorcentagemDTO dividirDTO, boolean simular) {
         Conta conta = contaService.encontrarContaPorId(dividirDTO.getContaId());
         
         // Validar se a conta já possui divisões
-        List<Divisao> divisoesExistentes = divisaoRepository.findByConta(conta);
-        if (!divisoesExistentes.isEmpty()) {
+        if (divisaoRepository.existsByContaId(conta.getId())) {
             throw new NegocioException("Esta conta já possui divisões. Para redividir, remova as divisões existentes primeiro.");
         }
         
         // Validar se a soma dos percentuais é 100% (1.0)
-        BigDecimal somaPercentuais = dividirDTO.getDivisoes().stream()
+        List<BigDecimal> percentuais = dividirDTO.getDivisoes().stream()
                 .map(DivisaoPorcentualDTO::getPercentual)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Collectors.toList());
+        BigDecimal somaPercentuais = CalculadoraDivisao.somar(percentuais);
         
         if (somaPercentuais.compareTo(BigDecimal.ONE) != 0) {
             throw new NegocioException("A soma dos percentuais deve ser exatamente 100% (1.0). " +
@@ -210,32 +230,79 @@ public class DivisaoService {
         }
         
         // Criar divisões baseadas nos percentuais
-        BigDecimal valorTotal = conta.getValor();
-        BigDecimal somaValoresCalculados = BigDecimal.ZERO;
+        // (rateio pelo maior resto: os centavos que sobram vão para as maiores frações)
+        List<BigDecimal> valoresDivisao = CalculadoraDivisao.valoresPorPercentual(conta.getValor(), percentuais);
+        List<Long> usuarioIds = dividirDTO.getDivisoes().stream()
+                .map(DivisaoPorcentualDTO::getUsuarioId)
+                .collect(Collectors.toList());
         
-        for (int i = 0; i < dividirDTO.getDivisoes().size(); i++) {
-            DivisaoPorcentualDTO divisaoDTO = dividirDTO.getDivisoes().get(i);
-            Usuario usuario = usuarioService.encontrarUsuarioPorId(divisaoDTO.getUsuarioId());
-            
-            BigDecimal valorDivisao;
-            
-            // Para o último usuário, calcular o valor restante para evitar problemas de arredondamento
-            if (i == dividirDTO.getDivisoes().size() - 1) {
-                valorDivisao = valorTotal.subtract(somaValoresCalculados);
-            } else {
-                valorDivisao = valorTotal.multiply(divisaoDTO.getPercentual())
-                        .setScale(2, RoundingMode.HALF_UP);
-                somaValoresCalculados = somaValoresCalculados.add(valorDivisao);
-            }
+        return substituirDivisoes(conta, usuarioIds, valoresDivisao, simular);
+    }
+    
+    /**
+     * Motor comum das três formas de divisão: troca as divisões da conta pelas partes calculadas.
+     * Os participantes são validados em uma única consulta; as divisões antigas saem do livro de saldos
+     * por totais agregados e são removidas com um único DELETE; as novas são gravadas em lote
+     * (ids por sequência + batch de INSERT), e os contadores da conta são redefinidos em um UPDATE.
+     * Com {@code simular} só valida e devolve a alocação.
+     * O livro recebe um delta líquido por par, aplicado num único lote.
+     */
+    private ResultadoDivisaoDTO substituirDivisoes(Conta conta, List<Long> usuarioIds,
+                                                   List<BigDecimal> valores, boolean simular) {
+        Map<Long, UsuarioDTO> participantes = validarParticipantes(usuarioIds);
+        
+        int substituidas;
+        List<Divisao> novasDivisoes = new ArrayList<>(usuarioIds.size());
+        if (simular) {
+            substituidas = (int) divisaoRepository.countByContaId(conta.getId());
+        } else {
+            // Contadores primeiro, como no pagamento: a linha da conta fica travada até o commit
+            contaRepository.redefinirContadores(conta.getId(), usuarioIds.size(), BigDecimal.ZERO);
+            List<TotalPorPar> anteriores = divisaoRepository.somarEmAbertoPorParDaConta(conta.getId());
+            substituidas = divisaoRepository.removerDaConta(conta.getId());
             
-            Divisao novaDivisao = Divisao.builder()
+            for (int i = 0; i < usuarioIds.size(); i++) {
+                novasDivisoes.add(Divisao.builder()
                     .conta(conta)
-                    .usuario(usuario)
-                    .valor(valorDivisao)
+                    .usuario(usuarioRepository.getReferenceById(usuarioIds.get(i)))
+                    .valor(valores.get(i))
                     .pago(false)
-                    .build();
-            
-            divisaoRepository.save(novaDivisao);
+                    .build());
+            }
+            divisaoRepository.saveAll(novasDivisoes);
+            // Baixa das antigas e registro das novas num único delta por par
+            saldoParService.substituirDivisoes(anteriores, novasDivisoes);
+        }
+        
+        List<ResultadoDivisaoDTO.ParteDTO> partes = new ArrayList<>(usuarioIds.size());
+        for (int i = 0; i < usuarioIds.size(); i++) {
+            partes.add(ResultadoDivisaoDTO.ParteDTO.builder()
+                .id(simular ? null : novasDivisoes.get(i).getId())
+                .usuarioId(usuarioIds.get(i))
+                .nomeUsuario(participantes.get(usuarioIds.get(i)).getNome())
+                .valor(valores.get(i))
+                .build());
+        }
+        
+        return ResultadoDivisaoDTO.builder()
+            .contaId(conta.getId())
+            .descricaoConta(conta.getDescricao())
+            .valorConta(conta.getValor())
+            .simulacao(simular)
+            .divisoesSubstituidas(substituidas)
+            .divisoes(partes)
+            .build();
+    }
+    
+    // Uma consulta de projeção para todos os participantes; qualquer id inexistente é 404
+    private Map<Long, UsuarioDTO> validarParticipantes(List<Long> usuarioIds) {
+        Map<Long, UsuarioDTO> participantes = usuarioRepository.findResumosPorIds(new HashSet<>(usuarioIds)).stream()
+            .collect(Collectors.toMap(UsuarioDTO::getId, u -> u));
+        for (Long usuarioId : usuarioIds) {
+            if (!participantes.containsKey(usuarioId)) {
+                throw new RecursoNaoEncontradoException("Usuário", usuarioId);
+            }
         }
+        return participantes;
     }
 }
@@ -0,0 +1,213 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.LinhaExportacaoDTO;
+import com.example.demo.exception.NegocioException;
+import com.example.demo.repository.ContaRepository;
+import com.example.demo.repository.DividaRepository;
+import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.ItemCompraRepository;
+import com.example.demo.repository.LinhaExportacao;
+import com.example.demo.repository.PagamentoExternoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Exportação do histórico financeiro de um usuário (contas, divisões, dívidas, itens de compra
+ * e pagamentos externos) em NDJSON ou CSV, com memória constante: cada seção é lida por uma
+ * consulta em streaming (fetch size + somente leitura) que projeta direto para a linha exportada,
+ * sem entidades no contexto de persistência, e cada linha é escrita assim que chega.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportacaoService {
+    
+    public enum Formato {
+        NDJSON, CSV;
+        
+        public static Formato de(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new NegocioException("Formato de exportação inválido: " + valor + " (use ndjson ou csv)");
+            }
+        }
+    }
+    
+    public enum Secao {
+        CONTAS, DIVISOES, DIVIDAS, COMPRAS, PAGAMENTOS;
+        
+        // Lista separada por vírgula; vazia = todas
+        public static Set<Secao> de(String valores) {
+            if (valores == null || valores.isBlank()) {
+                return EnumSet.allOf(Secao.class);
+            }
+            Set<Secao> secoes = EnumSet.noneOf(Secao.class);
+            for (String valor : valores.split(",")) {
+                if (valor.isBlank()) {
+                    continue;
+                }
+                try {
+                    secoes.add(valueOf(valor.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new NegocioException("Seção de exportação inválida: " + valor.trim()
+                        + " (use contas, divisoes, dividas, compras ou pagamentos)");
+                }
+            }
+            return secoes.isEmpty() ? EnumSet.allOf(Secao.class) : secoes;
+        }
+    }
+    
+    static final String[] COLUNAS_CSV = {
+        "tipo", "id", "referenciaId", "descricao", "valor", "quantidade", "papel", "contraparteId",
+        "contraparteNome", "dataCriacao", "vencimento", "pago", "status", "dataPagamento", "formaPagamento"
+    };
+    
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    
+    private final ContaRepository contaRepository;
+    private final DivisaoRepository divisaoRepository;
+    private final DividaRepository dividaRepository;
+    private final ItemCompraRepository itemCompraRepository;
+    private final PagamentoExternoRepository pagamentoExternoRepository;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * Escreve as seções pedidas em {@code saida} (que não é fechada).
+     *
+     * @return quantidade de linhas exportadas
+     */
+    @Transactional(readOnly = true)
+    public long exportar(Long usuarioId, Set<Secao> secoes, Formato formato, OutputStream saida) throws IOException {
+        long inicio = System.currentTimeMillis();
+        OutputStream buffer = new BufferedOutputStream(saida, TAMANHO_BUFFER);
+        if (formato == Formato.CSV) {
+            escreverLinhaCsv(buffer, COLUNAS_CSV);
+        }
+        
+        long total = 0;
+        if (secoes.contains(Secao.CONTAS)) {
+            total += escrever(() -> contaRepository.streamParaExportacao(usuarioId), formato, buffer);
+        }
+        if (secoes.contains(Secao.DIVISOES)) {
+            total += escrever(() -> divisaoRepository.streamDoUsuarioParaExportacao(usuarioId), formato, buffer);
+            total += escrever(() -> divisaoRepository.streamAReceberParaExportacao(usuarioId), formato, buffer);
+        }
+        if (secoes.contains(Secao.DIVIDAS)) {
+            total += escrever(() -> dividaRepository.streamDevendoParaExportacao(usuarioId), formato, buffer);
+            total += escrever(() -> dividaRepository.streamRecebendoParaExportacao(usuarioId), formato, buffer);
+        }
+        if (secoes.contains(Secao.COMPRAS)) {
+            total += escrever(() -> itemCompraRepository.streamDoUsuarioParaExportacao(usuarioId), formato, buffer);
+            total += escrever(() -> itemCompraRepository.streamAReceberParaExportacao(usuarioId), formato, buffer);
+        }
+        if (secoes.contains(Secao.PAGAMENTOS)) {
+            total += escrever(() -> pagamentoExternoRepository.streamParaExportacao(usuarioId), formato, buffer);
+        }
+        buffer.flush();
+        
+        log.info("Exportação do usuário {} ({}, seções {}): {} linha(s) em {} ms",
+            usuarioId, formato, secoes, total, System.currentTimeMillis() - inicio);
+        return total;
+    }
+    
+    private long escrever(Supplier<Stream<LinhaExportacao>> consulta, Formato formato, OutputStream saida) throws IOException {
+        long total = 0;
+        try (Stream<LinhaExportacao> linhas = consulta.get()) {
+            Iterator<LinhaExportacao> iterator = linhas.iterator();
+            while (iterator.hasNext()) {
+                LinhaExportacaoDTO linha = converterParaDTO(iterator.next());
+                if (formato == Formato.CSV) {
+                    escreverLinhaCsv(saida, valoresCsv(linha));
+                } else {
+                    saida.write(objectMapper.writeValueAsBytes(linha));
+                    saida.write('\n');
+                }
+                total++;
+            }
+        }
+        return total;
+    }
+    
+    private static LinhaExportacaoDTO converterParaDTO(LinhaExportacao linha) {
+        return LinhaExportacaoDTO.builder()
+            .tipo(linha.getTipo())
+            .id(linha.getId())
+            .referenciaId(linha.getReferenciaId())
+            .descricao(linha.getDescricao())
+            .valor(linha.getValor())
+            .quantidade(linha.getQuantidade())
+            .papel(linha.getPapel())
+            .contraparteId(linha.getContraparteId())
+            .contraparteNome(linha.getContraparteNome())
+            .dataCriacao(linha.getDataCriacao())
+            .vencimento(linha.getVencimento())
+            .pago(linha.getPago())
+            .status(linha.getStatus() != null ? linha.getStatus().toString() : null)
+            .dataPagamento(linha.getDataPagamento())
+            .formaPagamento(linha.getFormaPagamento())
+            .build();
+    }
+    
+    // Mesma ordem de COLUNAS_CSV
+    private static Object[] valoresCsv(LinhaExportacaoDTO linha) {
+        return new Object[] {
+            linha.getTipo(), linha.getId(), linha.getReferenciaId(), linha.getDescricao(), linha.getValor(),
+            linha.getQuantidade(), linha.getPapel(), linha.getContraparteId(), linha.getContraparteNome(),
+            linha.getDataCriacao(), linha.getVencimento(), linha.getPago(), linha.getStatus(),
+            linha.getDataPagamento(), linha.getFormaPagamento()
+        };
+    }
+    
+    private static void escreverLinhaCsv(OutputStream saida, Object[] valores) throws IOException {
+        StringBuilder linha = new StringBuilder(128);
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                linha.append(',');
+            }
+            linha.append(campoCsv(valores[i]));
+        }
+        linha.append('\n');
+        saida.write(linha.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // Datas em ISO-8601, valores sem notação científica; aspas só quando necessário.
+    // Texto que começa como fórmula (=, +, -, @, tab, CR) ganha um apóstrofo, para a planilha não executá-lo
+    static String campoCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor instanceof BigDecimal decimal ? decimal.toPlainString() : valor.toString();
+        if (valor instanceof String && pareceFormula(texto)) {
+            texto = "'" + texto;
+        }
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+    
+    private static boolean pareceFormula(String texto) {
+        if (texto.isEmpty()) {
+            return false;
+        }
+        char primeiro = texto.charAt(0);
+        return primeiro == '=' || primeiro == '+' || primeiro == '-' || primeiro == '@'
+            || primeiro == '\t' || primeiro == '\r';
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,12 +34,14 @@ public class GrupoService {
         // Validar membros iniciais (devem ser amigos do criador)
         List<Usuario> membrosIniciais = new ArrayList<>();
         if (criarGrupoDTO.getMembrosIniciais() != null && !criarGrupoDTO.getMembrosIniciais().isEmpty()) {
+            Map<Long, Usuario> candidatos = usuarioService.encontrarUsuariosPorIds(criarGrupoDTO.getMembrosIniciais());
+            
             for (Long membroId : criarGrupoDTO.getMembrosIniciais()) {
                 if (membroId.equals(criadorId)) {
                     continue; // Pular o próprio criador
                 }
                 
-                Usuario membro = usuarioService.encontrarUsuarioPorId(membroId);
+                Usuario membro = candidatos.get(membroId);
                 
                 // Verificar se são amigos
                 if (!amizadeService.saoAmigos(criadorId, membroId)) {
@@ -61,7 +64,7 @@ public class GrupoService {
                 .build();
         
         Grupo grupoSalvo = grupoRepository.save(grupo);
-        return converterParaDTO(grupoSalvo, criadorId);
+        return converterParaDTO(grupoSalvo, criador);
     }
     
     @Transactional(readOnly = true)
@@ -70,7 +73,7 @@ public class GrupoService {
         List<Grupo> grupos = grupoRepository.findGruposByUsuario(usuario);
         
         return grupos.stream()
-                .map(grupo -> converterParaDTO(grupo, usuarioId))
+                .map(grupo -> converterParaDTO(grupo, usuario))
                 .collect(Collectors.toList());
     }
     
@@ -84,7 +87,7 @@ public class GrupoService {
             throw new NegocioException("Você não tem acesso a este grupo");
         }
         
-        return converterParaDTO(grupo, usuarioId);
+        return converterParaDTO(grupo, usuario);
     }
     
     @Transactional
@@ -107,16 +110,18 @@ public class GrupoService {
         }
         
         Grupo grupoAtualizado = grupoRepository.save(grupo);
-        return converterParaDTO(grupoAtualizado, usuarioId);
+        return converterParaDTO(grupoAtualizado, usuarioLogado);
     }
     
     private void adicionarMembros(Grupo grupo, Long criadorId, List<Long> novosMembroIds) {
+        Map<Long, Usuario> candidatos = usuarioService.encontrarUsuariosPorIds(novosMembroIds);
+        
         for (Long membroId : novosMembroIds) {
             if (membroId.equals(criadorId)) {
                 continue; // Criador já faz parte implicitamente
             }
             
-            Usuario novoMembro = usuarioService.encontrarUsuarioPorId(membroId);
+            Usuario novoMembro = candidatos.get(membroId);
             
             // Verificar se já é membro
             if (grupo.isMembro(novoMembro)) {
@@ -176,14 +181,13 @@ public class GrupoService {
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Grupo", grupoId));
     }
     
-    private GrupoDTO converterParaDTO(Grupo grupo, Long usuarioIdPerspectiva) {
+    // O usuário da perspectiva já vem carregado pelo chamador (evita uma busca por grupo listado)
+    private GrupoDTO converterParaDTO(Grupo grupo, Usuario usuarioPerspectiva) {
         List<UsuarioDTO> membrosDTO = grupo.getMembros() != null ? 
             grupo.getMembros().stream()
                 .map(this::converterUsuarioParaDTO)
                 .collect(Collectors.toList()) : new ArrayList<>();
         
-        Usuario usuarioPerspectiva = usuarioService.encontrarUsuarioPorId(usuarioIdPerspectiva);
-        
         return GrupoDTO.builder()
                 .id(grupo.getId())
                 .nome(grupo.getNome())
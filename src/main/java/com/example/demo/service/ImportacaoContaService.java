@@ -0,0 +1,460 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ImportacaoContaDTO;
+import com.example.demo.dto.ResultadoImportacaoDTO;
+import com.example.demo.exception.NegocioException;
+import com.example.demo.model.Conta;
+import com.example.demo.model.Dinheiro;
+import com.example.demo.model.Divisao;
+import com.example.demo.model.Usuario;
+import com.example.demo.repository.ContaRepository;
+import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.GrupoRepository;
+import com.example.demo.repository.UsuarioRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importação em massa de contas (com divisões) a partir de CSV ou NDJSON, lida em streaming.
+ * As linhas válidas são acumuladas em lotes; cada lote é gravado na sua própria transação com
+ * inserts em batch JDBC (ids por sequência alocados em bloco) e registrado no livro de saldos.
+ * Linhas inválidas não interrompem a importação: voltam no relatório com o número da linha.
+ * Não gera notificações para os participantes.
+ */
+@Slf4j
+@Service
+public class ImportacaoContaService {
+    
+    public enum Formato { CSV, NDJSON }
+    
+    private static final int TAMANHO_MAXIMO_DESCRICAO = 255;
+    private static final BigDecimal VALOR_MAXIMO = new BigDecimal("99999999.99"); // precision 10, scale 2
+    
+    private final ContaRepository contaRepository;
+    private final DivisaoRepository divisaoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final GrupoRepository grupoRepository;
+    private final UsuarioService usuarioService;
+    private final SaldoParService saldoParService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transacao;
+    private final int tamanhoLote;
+    private final int maximoErros;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public ImportacaoContaService(ContaRepository contaRepository,
+                                  DivisaoRepository divisaoRepository,
+                                  UsuarioRepository usuarioRepository,
+                                  GrupoRepository grupoRepository,
+                                  UsuarioService usuarioService,
+                                  SaldoParService saldoParService,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${contas.importacao.tamanho-lote:1000}") int tamanhoLote,
+                                  @Value("${contas.importacao.maximo-erros:1000}") int maximoErros) {
+        this.contaRepository = contaRepository;
+        this.divisaoRepository = divisaoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.grupoRepository = grupoRepository;
+        this.usuarioService = usuarioService;
+        this.saldoParService = saldoParService;
+        this.objectMapper = objectMapper;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = Math.max(1, tamanhoLote);
+        this.maximoErros = Math.max(0, maximoErros);
+    }
+    
+    /**
+     * Importa as contas lidas de {@code entrada}, com o usuário como criador.
+     * CSV: cabeçalho obrigatório com as colunas descricao e valor; opcionais vencimento (AAAA-MM-DD),
+     * grupoId e divisoes no formato {@code usuarioId:valor;usuarioId:valor}. Uma conta por linha.
+     * NDJSON: um {@link ImportacaoContaDTO} por linha.
+     */
+    public ResultadoImportacaoDTO importar(Long usuarioId, Reader entrada, Formato formato) throws IOException {
+        Usuario criador = usuarioService.encontrarUsuarioPorId(usuarioId);
+        long inicio = System.currentTimeMillis();
+        Importacao importacao = new Importacao(criador);
+        
+        BufferedReader leitor = entrada instanceof BufferedReader b ? b : new BufferedReader(entrada);
+        Map<String, Integer> colunas = null;
+        long numero = 0;
+        String texto;
+        while ((texto = leitor.readLine()) != null) {
+            numero++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            if (formato == Formato.CSV && colunas == null) {
+                colunas = lerCabecalho(texto);
+                continue;
+            }
+            
+            importacao.linhasLidas++;
+            try {
+                ImportacaoContaDTO dto = formato == Formato.CSV
+                    ? lerCsv(texto, colunas)
+                    : objectMapper.readValue(texto, ImportacaoContaDTO.class);
+                importacao.pendentes.add(validar(numero, dto));
+            } catch (NegocioException e) {
+                importacao.erro(numero, e.getMessage());
+            } catch (JsonProcessingException e) {
+                importacao.erro(numero, "JSON inválido: " + e.getOriginalMessage());
+            }
+            
+            if (importacao.pendentes.size() >= tamanhoLote) {
+                gravarLote(importacao);
+            }
+        }
+        gravarLote(importacao);
+        // Erros de referência só aparecem quando o lote é gravado; devolve em ordem de linha
+        importacao.erros.sort(Comparator.comparingLong(ResultadoImportacaoDTO.ErroLinhaDTO::getLinha));
+        
+        long duracao = System.currentTimeMillis() - inicio;
+        log.info("Importação de contas do usuário {}: {} linha(s), {} conta(s) e {} divisão(ões) em {} lote(s), {} erro(s), {} ms",
+            usuarioId, importacao.linhasLidas, importacao.contas, importacao.divisoes, importacao.lotes,
+            importacao.linhasComErro, duracao);
+        
+        return ResultadoImportacaoDTO.builder()
+            .linhasLidas(importacao.linhasLidas)
+            .contasImportadas(importacao.contas)
+            .divisoesImportadas(importacao.divisoes)
+            .linhasComErro(importacao.linhasComErro)
+            .lotes(importacao.lotes)
+            .duracaoMs(duracao)
+            .erros(importacao.erros)
+            .errosOmitidos(importacao.linhasComErro - importacao.erros.size())
+            .build();
+    }
+    
+    // ===== Gravação =====
+    
+    private void gravarLote(Importacao importacao) {
+        if (importacao.pendentes.isEmpty()) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        List<Linha> validas = resolverReferencias(importacao);
+        importacao.pendentes.clear();
+        if (validas.isEmpty()) {
+            return;
+        }
+        
+        try {
+            importacao.divisoes += gravar(validas, importacao.criador);
+            importacao.contas += validas.size();
+        } catch (RuntimeException e) {
+            // O lote inteiro voltou; regrava linha a linha para apontar exatamente quais falham
+            log.warn("Lote de importação falhou ({}), regravando linha a linha", NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            for (Linha linha : validas) {
+                try {
+                    importacao.divisoes += gravar(List.of(linha), importacao.criador);
+                    importacao.contas++;
+                } catch (RuntimeException erroLinha) {
+                    importacao.erro(linha.numero(), "Falha ao gravar: " + NestedExceptionUtils.getMostSpecificCause(erroLinha).getMessage());
+                }
+            }
+        }
+        importacao.lotes++;
+        log.debug("Importação: lote {} com {} conta(s) gravado em {} ms",
+            importacao.lotes, validas.size(), System.currentTimeMillis() - inicio);
+    }
+    
+    // Uma transação por chamada; o contexto de persistência é limpo no fim para não acumular entidades
+    private int gravar(List<Linha> linhas, Usuario criador) {
+        Integer divisoesGravadas = transacao.execute(status -> {
+            Usuario criadorRef = usuarioRepository.getReferenceById(criador.getId());
+            List<Conta> contas = new ArrayList<>(linhas.size());
+            List<Divisao> divisoes = new ArrayList<>();
+            for (Linha linha : linhas) {
+                Conta conta = Conta.builder()
+                    .descricao(linha.descricao())
+                    .valor(linha.valor())
+                    .vencimento(linha.vencimento())
+                    .criador(criadorRef)
+                    .grupo(linha.grupoId() != null ? grupoRepository.getReferenceById(linha.grupoId()) : null)
+                    .divisoesPendentes(linha.partes().size())
+                    .build();
+                contas.add(conta);
+                for (Parte parte : linha.partes()) {
+                    divisoes.add(Divisao.builder()
+                        .conta(conta)
+                        .usuario(usuarioRepository.getReferenceById(parte.usuarioId()))
+                        .valor(parte.valor())
+                        .build());
+                }
+            }
+            contaRepository.saveAll(contas);
+            divisaoRepository.saveAll(divisoes);
+            saldoParService.registrarDivisoes(divisoes);
+            
+            entityManager.flush();
+            entityManager.clear();
+            return divisoes.size();
+        });
+        return divisoesGravadas != null ? divisoesGravadas : 0;
+    }
+    
+    // Usuários e grupos referenciados pelo lote: uma consulta para os usuários ainda não vistos,
+    // uma verificação de acesso por grupo ainda não visto
+    private List<Linha> resolverReferencias(Importacao importacao) {
+        Set<Long> desconhecidos = new HashSet<>();
+        for (Linha linha : importacao.pendentes) {
+            for (Parte parte : linha.partes()) {
+                if (!importacao.usuarios.containsKey(parte.usuarioId())) {
+                    desconhecidos.add(parte.usuarioId());
+                }
+            }
+        }
+        if (!desconhecidos.isEmpty()) {
+            desconhecidos.forEach(id -> importacao.usuarios.put(id, false));
+            usuarioRepository.findIdsExistentes(desconhecidos).forEach(id -> importacao.usuarios.put(id, true));
+        }
+        
+        List<Linha> validas = new ArrayList<>(importacao.pendentes.size());
+        for (Linha linha : importacao.pendentes) {
+            String erro = erroDeReferencia(linha, importacao);
+            if (erro != null) {
+                importacao.erro(linha.numero(), erro);
+            } else {
+                validas.add(linha);
+            }
+        }
+        return validas;
+    }
+    
+    private String erroDeReferencia(Linha linha, Importacao importacao) {
+        if (linha.grupoId() != null) {
+            boolean acessivel = importacao.grupos.computeIfAbsent(linha.grupoId(),
+                id -> grupoRepository.isUsuarioMembroDoGrupo(id, importacao.criador));
+            if (!acessivel) {
+                return "Grupo " + linha.grupoId() + " não encontrado ou sem acesso";
+            }
+        }
+        for (Parte parte : linha.partes()) {
+            if (!importacao.usuarios.get(parte.usuarioId())) {
+                return "Usuário " + parte.usuarioId() + " não encontrado";
+            }
+        }
+        return null;
+    }
+    
+    // ===== Leitura e validação =====
+    
+    private Linha validar(long numero, ImportacaoContaDTO dto) {
+        String descricao = dto.getDescricao() != null ? dto.getDescricao().trim() : "";
+        if (descricao.isEmpty()) {
+            throw new NegocioException("Descrição é obrigatória");
+        }
+        if (descricao.length() > TAMANHO_MAXIMO_DESCRICAO) {
+            throw new NegocioException("Descrição com mais de " + TAMANHO_MAXIMO_DESCRICAO + " caracteres");
+        }
+        BigDecimal valor = validarValor(dto.getValor(), "Valor da conta");
+        
+        List<Parte> partes = new ArrayList<>();
+        if (dto.getDivisoes() != null && !dto.getDivisoes().isEmpty()) {
+            Set<Long> participantes = new HashSet<>();
+            long somaCentavos = 0;
+            for (ImportacaoContaDTO.DivisaoImportadaDTO divisao : dto.getDivisoes()) {
+                if (divisao.getUsuarioId() == null) {
+                    throw new NegocioException("Divisão sem usuarioId");
+                }
+                if (!participantes.add(divisao.getUsuarioId())) {
+                    throw new NegocioException("Usuário " + divisao.getUsuarioId() + " repetido nas divisões");
+                }
+                BigDecimal valorDivisao = validarValor(divisao.getValor(), "Valor da divisão");
+                somaCentavos += Dinheiro.centavos(valorDivisao);
+                partes.add(new Parte(divisao.getUsuarioId(), valorDivisao));
+            }
+            if (somaCentavos != Dinheiro.centavos(valor)) {
+                throw new NegocioException("A soma das divisões (" + Dinheiro.paraBigDecimal(somaCentavos)
+                    + ") deve ser igual ao valor da conta (" + valor + ")");
+            }
+        }
+        return new Linha(numero, descricao, valor, dto.getVencimento(), dto.getGrupoId(), partes);
+    }
+    
+    private static BigDecimal validarValor(BigDecimal valor, String campo) {
+        if (valor == null) {
+            throw new NegocioException(campo + " é obrigatório");
+        }
+        if (valor.signum() <= 0) {
+            throw new NegocioException(campo + " deve ser positivo");
+        }
+        if (valor.stripTrailingZeros().scale() > 2) {
+            throw new NegocioException(campo + " com mais de 2 casas decimais");
+        }
+        if (valor.compareTo(VALOR_MAXIMO) > 0) {
+            throw new NegocioException(campo + " acima do máximo permitido");
+        }
+        return valor.setScale(2);
+    }
+    
+    private static Map<String, Integer> lerCabecalho(String texto) {
+        List<String> nomes = camposCsv(texto.startsWith("\uFEFF") ? texto.substring(1) : texto);
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < nomes.size(); i++) {
+            colunas.put(nomes.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!colunas.containsKey("descricao") || !colunas.containsKey("valor")) {
+            throw new NegocioException("Cabeçalho do CSV deve conter as colunas descricao e valor");
+        }
+        return colunas;
+    }
+    
+    private static ImportacaoContaDTO lerCsv(String texto, Map<String, Integer> colunas) {
+        List<String> campos = camposCsv(texto);
+        ImportacaoContaDTO dto = new ImportacaoContaDTO();
+        dto.setDescricao(campo(campos, colunas, "descricao"));
+        
+        String valor = campo(campos, colunas, "valor");
+        dto.setValor(valor != null ? decimal(valor, "valor") : null);
+        
+        String vencimento = campo(campos, colunas, "vencimento");
+        if (vencimento != null) {
+            try {
+                dto.setVencimento(LocalDate.parse(vencimento));
+            } catch (DateTimeParseException e) {
+                throw new NegocioException("Vencimento inválido: " + vencimento);
+            }
+        }
+        
+        String grupoId = campo(campos, colunas, "grupoid");
+        dto.setGrupoId(grupoId != null ? inteiro(grupoId, "grupoId") : null);
+        
+        String divisoes = campo(campos, colunas, "divisoes");
+        if (divisoes != null) {
+            List<ImportacaoContaDTO.DivisaoImportadaDTO> lista = new ArrayList<>();
+            for (String parte : divisoes.split(";")) {
+                if (parte.isBlank()) {
+                    continue;
+                }
+                int separador = parte.indexOf(':');
+                if (separador < 0) {
+                    throw new NegocioException("Divisão inválida (esperado usuarioId:valor): " + parte.trim());
+                }
+                lista.add(new ImportacaoContaDTO.DivisaoImportadaDTO(
+                    inteiro(parte.substring(0, separador).trim(), "usuarioId da divisão"),
+                    decimal(parte.substring(separador + 1).trim(), "valor da divisão")));
+            }
+            dto.setDivisoes(lista);
+        }
+        return dto;
+    }
+    
+    // Campo pelo nome da coluna; vazio ou ausente vira null
+    private static String campo(List<String> campos, Map<String, Integer> colunas, String nome) {
+        Integer indice = colunas.get(nome);
+        if (indice == null || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+    
+    private static BigDecimal decimal(String texto, String campo) {
+        try {
+            return new BigDecimal(texto);
+        } catch (NumberFormatException e) {
+            throw new NegocioException("Número inválido em " + campo + ": " + texto);
+        }
+    }
+    
+    private static Long inteiro(String texto, String campo) {
+        try {
+            return Long.valueOf(texto);
+        } catch (NumberFormatException e) {
+            throw new NegocioException("Id inválido em " + campo + ": " + texto);
+        }
+    }
+    
+    /**
+     * Separa uma linha CSV por vírgula, com campos entre aspas duplas ("" dentro das aspas = uma aspa).
+     */
+    static List<String> camposCsv(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c != '"') {
+                    atual.append(c);
+                } else if (i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else {
+                    entreAspas = false;
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        if (entreAspas) {
+            throw new NegocioException("Aspas não fechadas na linha");
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+    
+    private record Parte(Long usuarioId, BigDecimal valor) {
+    }
+    
+    private record Linha(long numero, String descricao, BigDecimal valor, LocalDate vencimento,
+                         Long grupoId, List<Parte> partes) {
+    }
+    
+    // Estado de uma importação: lote pendente, referências já verificadas e contadores
+    private class Importacao {
+        final Usuario criador;
+        final List<Linha> pendentes = new ArrayList<>();
+        final Map<Long, Boolean> usuarios = new HashMap<>();
+        final Map<Long, Boolean> grupos = new HashMap<>();
+        final List<ResultadoImportacaoDTO.ErroLinhaDTO> erros = new ArrayList<>();
+        long linhasLidas;
+        long linhasComErro;
+        long contas;
+        long divisoes;
+        int lotes;
+        
+        Importacao(Usuario criador) {
+            this.criador = criador;
+        }
+        
+        void erro(long linha, String mensagem) {
+            linhasComErro++;
+            if (erros.size() < maximoErros) {
+                erros.add(new ResultadoImportacaoDTO.ErroLinhaDTO(linha, mensagem));
+            }
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UsuarioDTO;
+import com.example.demo.repository.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice de trigramas em memória sobre nome e email dos usuários, para autocomplete.
+ * Texto normalizado (minúsculas, sem acentos). Consultas com 1-2 caracteres casam
+ * com início de palavra e são respondidas por listas pré-ordenadas dos melhores de cada prefixo;
+ * a partir de 3 caracteres, com qualquer trecho.
+ * Atualizado a cada escrita de usuário via UsuarioAlteradoEvent.
+ */
+@Slf4j
+@Component
+class IndiceBuscaUsuarios {
+    
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    
+    private static final int TAMANHO_BLOCO = 1024;
+    // Melhores documentos guardados por prefixo de 1-2 caracteres: folga sobre o limite da busca (50)
+    // para amigos e o próprio usuário, que saem da lista na hora da consulta
+    private static final int TOPO_PREFIXO = 128;
+    
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transacaoLeitura;
+    
+    private volatile Indice indice = new Indice();
+    private volatile Indice indiceEmConstrucao;
+    
+    IndiceBuscaUsuarios(UsuarioRepository usuarioRepository, PlatformTransactionManager transactionManager) {
+        this.usuarioRepository = usuarioRepository;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+    
+    /**
+     * Documento indexado: só o necessário para responder a busca sem ir ao banco.
+     */
+    static final class Documento {
+        final long id;
+        final String nome;
+        final String email;
+        final String texto; // nome + email normalizados
+        final String nomeNormalizado;
+        
+        Documento(long id, String nome, String email) {
+            this.id = id;
+            this.nome = nome;
+            this.email = email;
+            this.nomeNormalizado = normalizar(nome);
+            this.texto = (nomeNormalizado + " " + normalizar(email)).trim();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirNaInicializacao() {
+        reconstruir();
+    }
+    
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        Indice novo = new Indice();
+        indiceEmConstrucao = novo;
+        try {
+            long total = transacaoLeitura.execute(status -> {
+                try (Stream<UsuarioDTO> usuarios = usuarioRepository.streamResumos()) {
+                    return usuarios
+                        .peek(u -> novo.adicionar(new Documento(u.getId(), u.getNome(), u.getEmail())))
+                        .count();
+                }
+            });
+            indice = novo;
+            log.info("Índice de busca de usuários construído: {} usuário(s), {} trigrama(s) em {} ms",
+                total, novo.postagens.size(), System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            log.error("Falha ao construir índice de busca de usuários", e);
+        } finally {
+            indiceEmConstrucao = null;
+        }
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterarUsuario(UsuarioAlteradoEvent evento) {
+        aplicar(indice, evento);
+        Indice emConstrucao = indiceEmConstrucao;
+        if (emConstrucao != null) {
+            aplicar(emConstrucao, evento);
+        }
+    }
+    
+    private static void aplicar(Indice alvo, UsuarioAlteradoEvent evento) {
+        alvo.remover(evento.getUsuarioId());
+        if (evento.getTipo() != UsuarioAlteradoEvent.Tipo.REMOVIDO) {
+            alvo.adicionar(new Documento(evento.getUsuarioId(), evento.getNome(), evento.getEmail()));
+        }
+    }
+    
+    /**
+     * Busca documentos que contêm a consulta. Amigos (ids informados) vêm primeiro;
+     * depois, nomes que começam com a consulta, nomes mais curtos e id. A ordenação vale
+     * sobre todos os usuários que casam, não só sobre uma janela de ids.
+     */
+    List<Documento> buscar(String consulta, Set<Long> amigos, Long ignorarId, int limite) {
+        String termo = normalizar(consulta);
+        if (termo.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        Indice atual = indice;
+        
+        // 1) Amigos: conjunto pequeno, verificado diretamente
+        List<Documento> resultado = new ArrayList<>();
+        for (Long amigoId : amigos) {
+            Documento doc = atual.documentos.get(amigoId);
+            if (doc != null && casa(doc, termo)) {
+                resultado.add(doc);
+            }
+        }
+        resultado.sort(ordenacao(termo));
+        if (resultado.size() >= limite) {
+            return resultado.subList(0, limite);
+        }
+        
+        // 2) Demais usuários: percorre a menor lista de trigramas e confere nas demais
+        List<Postagens> listas = new ArrayList<>();
+        for (long trigrama : trigramasDaConsulta(termo)) {
+            Postagens postagens = atual.postagens.get(trigrama);
+            if (postagens == null) {
+                return resultado; // Algum trigrama não existe: nenhum outro usuário casa
+            }
+            listas.add(postagens);
+        }
+        listas.sort(Comparator.comparingInt(Postagens::tamanho));
+        int restante = limite - resultado.size();
+        
+        // Consultas de 1-2 letras: a lista do prefixo já está ordenada; só se amigos e o próprio usuário
+        // ocuparem quase toda ela (e houver mais gente com o prefixo) cai na varredura abaixo
+        if (termo.length() < 3) {
+            Topo topo = atual.topos.get(trigramasDaConsulta(termo).iterator().next());
+            List<Documento> outros = new ArrayList<>(restante);
+            List<Documento> candidatos = topo != null ? topo.listar() : List.of();
+            for (Documento doc : candidatos) {
+                if (outros.size() == restante) {
+                    break;
+                }
+                // Documento ainda atual (não removido nem alterado depois de entrar na lista)
+                if (!amigos.contains(doc.id) && (ignorarId == null || ignorarId != doc.id)
+                        && atual.documentos.get(doc.id) == doc) {
+                    outros.add(doc);
+                }
+            }
+            if (outros.size() == restante || candidatos.size() >= listas.get(0).tamanho()) {
+                resultado.addAll(outros);
+                return resultado;
+            }
+        }
+        
+        // Todos os candidatos da interseção são pontuados, guardando só os "restante" melhores num heap
+        // (pior no topo). O custo acompanha o tamanho da menor lista de trigramas, não o da tabela
+        Comparator<Documento> ordem = ordenacao(termo);
+        PriorityQueue<Documento> melhores = new PriorityQueue<>(restante + 1, ordem.reversed());
+        Postagens menor = listas.get(0);
+        // Lê a menor lista em blocos, sem copiar a lista inteira de uma vez
+        long[] bloco;
+        int desde = 0;
+        while ((bloco = menor.bloco(desde, TAMANHO_BLOCO)).length > 0) {
+            desde += bloco.length;
+            for (long id : bloco) {
+                if (amigos.contains(id) || (ignorarId != null && ignorarId == id)) {
+                    continue;
+                }
+                boolean emTodas = true;
+                for (int j = 1; j < listas.size() && emTodas; j++) {
+                    emTodas = listas.get(j).contem(id);
+                }
+                if (!emTodas) {
+                    continue;
+                }
+                Documento doc = atual.documentos.get(id);
+                // Trigramas batem mas a sequência pode não bater: confirma no texto
+                if (doc == null || !casa(doc, termo)) {
+                    continue;
+                }
+                if (melhores.size() < restante) {
+                    melhores.add(doc);
+                } else if (ordem.compare(doc, melhores.peek()) < 0) {
+                    melhores.poll();
+                    melhores.add(doc);
+                }
+            }
+        }
+        
+        List<Documento> outros = new ArrayList<>(melhores);
+        outros.sort(ordem);
+        resultado.addAll(outros);
+        return resultado;
+    }
+    
+    // Os TOPO_PREFIXO melhores de uma lista de trigramas, na ordem da busca pelo prefixo
+    private static List<Documento> melhoresDaLista(Postagens lista, Map<Long, Documento> documentos,
+                                                   Comparator<Documento> ordem) {
+        PriorityQueue<Documento> melhores = new PriorityQueue<>(TOPO_PREFIXO + 1, ordem.reversed());
+        long[] bloco;
+        int desde = 0;
+        while ((bloco = lista.bloco(desde, TAMANHO_BLOCO)).length > 0) {
+            desde += bloco.length;
+            for (long id : bloco) {
+                Documento doc = documentos.get(id);
+                if (doc == null) {
+                    continue;
+                }
+                melhores.add(doc);
+                if (melhores.size() > TOPO_PREFIXO) {
+                    melhores.poll();
+                }
+            }
+        }
+        return new ArrayList<>(melhores);
+    }
+    
+    int tamanho() {
+        return indice.documentos.size();
+    }
+    
+    private static boolean casa(Documento doc, String termo) {
+        if (termo.length() >= 3) {
+            return doc.texto.contains(termo);
+        }
+        // Consultas curtas: início de alguma palavra
+        return doc.texto.startsWith(termo) || doc.texto.contains(" " + termo);
+    }
+    
+    private static Comparator<Documento> ordenacao(String termo) {
+        return Comparator
+            .comparing((Documento d) -> !d.nomeNormalizado.startsWith(termo))
+            .thenComparingInt(d -> d.nomeNormalizado.length())
+            .thenComparingLong(d -> d.id);
+    }
+    
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(semAcentos.toLowerCase()).replaceAll(" ").trim();
+    }
+    
+    // Trigramas de cada palavra, com duas posições de preenchimento no início
+    // para que prefixos de 1 e 2 caracteres também tenham trigramas
+    private static Collection<Long> trigramasDoTexto(String texto) {
+        Set<Long> trigramas = new LinkedHashSet<>();
+        for (String palavra : texto.split(" ")) {
+            if (palavra.isEmpty()) {
+                continue;
+            }
+            String preenchida = "  " + palavra;
+            for (int i = 0; i + 3 <= preenchida.length(); i++) {
+                trigramas.add(codificar(preenchida, i));
+            }
+        }
+        return trigramas;
+    }
+    
+    private static Collection<Long> trigramasDaConsulta(String termo) {
+        if (termo.length() < 3) {
+            String preenchido = (termo.length() == 1 ? "  " : " ") + termo;
+            return List.of(codificar(preenchido, preenchido.length() - 3));
+        }
+        Set<Long> trigramas = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= termo.length(); i++) {
+            trigramas.add(codificar(termo, i));
+        }
+        // Trigramas que atravessam palavras (com espaço) não existem no índice
+        trigramas.removeIf(IndiceBuscaUsuarios::atravessaPalavras);
+        if (trigramas.isEmpty()) {
+            // Consulta do tipo "a b": usa o início de cada palavra
+            trigramas.addAll(trigramasDaConsultaPorPalavra(termo));
+        }
+        return trigramas;
+    }
+    
+    private static Collection<Long> trigramasDaConsultaPorPalavra(String termo) {
+        Set<Long> trigramas = new LinkedHashSet<>();
+        for (String palavra : termo.split(" ")) {
+            if (!palavra.isEmpty()) {
+                trigramas.addAll(trigramasDaConsulta(palavra));
+            }
+        }
+        return trigramas;
+    }
+    
+    private static long codificar(String texto, int inicio) {
+        return ((long) texto.charAt(inicio) << 32) | ((long) texto.charAt(inicio + 1) << 16) | texto.charAt(inicio + 2);
+    }
+    
+    // Trigramas de início de palavra ("  a", " ab"): os mesmos usados pelas consultas de 1-2 caracteres
+    private static boolean ehPrefixo(long trigrama) {
+        return (char) (trigrama >>> 32) == ' ';
+    }
+    
+    private static String prefixo(long trigrama) {
+        return new String(new char[] {(char) (trigrama >>> 32), (char) (trigrama >>> 16), (char) trigrama}).trim();
+    }
+    
+    // Espaços de preenchimento só aparecem no início ("  a", " ab");
+    // espaço no meio ou no fim indica um trigrama entre duas palavras
+    private static boolean atravessaPalavras(long trigrama) {
+        char c1 = (char) (trigrama >>> 32);
+        char c2 = (char) (trigrama >>> 16);
+        char c3 = (char) trigrama;
+        return c3 == ' ' || (c2 == ' ' && c1 != ' ');
+    }
+    
+    /**
+     * Estrutura completa do índice; trocada inteira na reconstrução.
+     */
+    private static final class Indice {
+        final Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+        final Map<Long, Postagens> postagens = new ConcurrentHashMap<>();
+        final Map<Long, Topo> topos = new ConcurrentHashMap<>();
+        
+        void adicionar(Documento doc) {
+            documentos.put(doc.id, doc);
+            for (long trigrama : trigramasDoTexto(doc.texto)) {
+                postagens.computeIfAbsent(trigrama, t -> new Postagens()).adicionar(doc.id);
+                if (ehPrefixo(trigrama)) {
+                    topos.computeIfAbsent(trigrama, Topo::new).adicionar(doc);
+                }
+            }
+        }
+        
+        void remover(Long id) {
+            Documento anterior = documentos.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            for (long trigrama : trigramasDoTexto(anterior.texto)) {
+                Postagens lista = postagens.get(trigrama);
+                if (lista != null) {
+                    lista.remover(id);
+                }
+                Topo topo = ehPrefixo(trigrama) ? topos.get(trigrama) : null;
+                // Saiu um dos melhores: completa a lista com o próximo da fila (varredura na escrita, não na busca)
+                if (topo != null && topo.remover(anterior) && lista != null && lista.tamanho() > topo.tamanho()) {
+                    topo.completar(melhoresDaLista(lista, documentos, topo.ordem));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Os TOPO_PREFIXO melhores documentos de um prefixo de 1-2 caracteres, já na ordem da busca.
+     */
+    private static final class Topo {
+        final Comparator<Documento> ordem;
+        private final TreeSet<Documento> docs;
+        
+        Topo(long trigrama) {
+            this.ordem = ordenacao(prefixo(trigrama));
+            this.docs = new TreeSet<>(ordem);
+        }
+        
+        synchronized void adicionar(Documento doc) {
+            docs.add(doc);
+            if (docs.size() > TOPO_PREFIXO) {
+                docs.pollLast();
+            }
+        }
+        
+        synchronized boolean remover(Documento doc) {
+            return docs.remove(doc);
+        }
+        
+        // Junta com o que entrou durante a varredura; a busca descarta documentos que já não são atuais
+        synchronized void completar(Collection<Documento> melhores) {
+            docs.addAll(melhores);
+            while (docs.size() > TOPO_PREFIXO) {
+                docs.pollLast();
+            }
+        }
+        
+        synchronized int tamanho() {
+            return docs.size();
+        }
+        
+        synchronized List<Documento> listar() {
+            return new ArrayList<>(docs);
+        }
+    }
+    
+    /**
+     * Lista ordenada de ids (long primitivo) de um trigrama.
+     * Ids novos costumam ser os maiores, então a inserção normalmente é no fim.
+     */
+    private static final class Postagens {
+        private long[] ids = new long[4];
+        private int tamanho;
+        
+        synchronized void adicionar(long id) {
+            int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (posicao >= 0) {
+                return;
+            }
+            posicao = -posicao - 1;
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho + (tamanho >> 1) + 1);
+            }
+            System.arraycopy(ids, posicao, ids, posicao + 1, tamanho - posicao);
+            ids[posicao] = id;
+            tamanho++;
+        }
+        
+        synchronized void remover(long id) {
+            int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (posicao < 0) {
+                return;
+            }
+            System.arraycopy(ids, posicao + 1, ids, posicao, tamanho - posicao - 1);
+            tamanho--;
+        }
+        
+        synchronized boolean contem(long id) {
+            return Arrays.binarySearch(ids, 0, tamanho, id) >= 0;
+        }
+        
+        synchronized int tamanho() {
+            return tamanho;
+        }
+        
+        synchronized long[] bloco(int desde, int quantidade) {
+            if (desde >= tamanho) {
+                return new long[0];
+            }
+            return Arrays.copyOfRange(ids, desde, Math.min(tamanho, desde + quantidade));
+        }
+    }
+}
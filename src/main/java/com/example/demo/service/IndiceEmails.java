@@ -0,0 +1,211 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Índice em memória dos emails cadastrados.
+ * O filtro de Bloom responde "email não cadastrado" sem ir ao banco; o cache limitado
+ * guarda email -> id dos emails consultados recentemente. Qualquer dúvida (Bloom diz
+ * "talvez") é resolvida no banco, e a constraint unique de usuarios.email continua
+ * sendo a fonte da verdade para cadastros concorrentes.
+ */
+@Slf4j
+@Component
+class IndiceEmails {
+    
+    private static final double TAXA_FALSO_POSITIVO = 0.001;
+    
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transacaoLeitura;
+    private final long capacidadeInicial;
+    private final Map<String, Long> cachePositivo;
+    
+    private volatile BloomFilter filtro;
+    private volatile BloomFilter filtroEmConstrucao;
+    private volatile long capacidadeFiltro;
+    private volatile boolean pronto = false;
+    private final AtomicLong insercoes = new AtomicLong();
+    // Conta as remoções do cache: uma consulta ao banco que cruzou uma remoção não grava o resultado (antigo)
+    private long remocoes = 0;
+    
+    IndiceEmails(UsuarioRepository usuarioRepository,
+                 PlatformTransactionManager transactionManager,
+                 @Value("${usuarios.indice-emails.capacidade:1000000}") long capacidadeInicial,
+                 @Value("${usuarios.indice-emails.cache-max-entradas:10000}") int maxEntradasCache) {
+        this.usuarioRepository = usuarioRepository;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+        this.capacidadeInicial = Math.max(1000, capacidadeInicial);
+        this.capacidadeFiltro = this.capacidadeInicial;
+        this.filtro = new BloomFilter(capacidadeFiltro, TAXA_FALSO_POSITIVO);
+        this.cachePositivo = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> maisAntigo) {
+                return size() > maxEntradasCache;
+            }
+        });
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirNaInicializacao() {
+        reconstruir();
+    }
+    
+    /**
+     * Reconstrói o filtro lendo a tabela em streaming. Também descarta emails
+     * de usuários removidos, que o filtro de Bloom não consegue apagar, e esvazia o cache positivo.
+     */
+    @Scheduled(cron = "${usuarios.indice-emails.reconstrucao-cron:0 40 4 * * *}")
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        long total = usuarioRepository.count();
+        long capacidade = capacidadeInicial;
+        while (capacidade < total * 2) {
+            capacidade *= 2;
+        }
+        
+        BloomFilter novo = new BloomFilter(capacidade, TAXA_FALSO_POSITIVO);
+        // Cadastros que acontecerem durante a leitura também entram no filtro novo
+        filtroEmConstrucao = novo;
+        
+        try {
+            long lidos = transacaoLeitura.execute(status -> {
+                try (Stream<String> emails = usuarioRepository.streamEmails()) {
+                    return emails.peek(novo::adicionar).count();
+                }
+            });
+            filtro = novo;
+            capacidadeFiltro = capacidade;
+            limparCache();
+            insercoes.set(lidos);
+            pronto = true;
+            log.info("Índice de emails construído: {} email(s) em {} ms", lidos, System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            // Mantém o filtro anterior; antes da primeira construção as consultas vão ao banco
+            log.error("Falha ao construir índice de emails", e);
+        } finally {
+            filtroEmConstrucao = null;
+        }
+    }
+    
+    /**
+     * false = com certeza não há usuário com este email.
+     */
+    boolean podeExistir(String email) {
+        if (email == null) {
+            return false;
+        }
+        return !pronto || filtro.podeConter(email);
+    }
+    
+    Optional<Long> buscarId(String email) {
+        if (!podeExistir(email)) {
+            return Optional.empty();
+        }
+        long remocoesAntes;
+        synchronized (cachePositivo) {
+            Long emCache = cachePositivo.get(email);
+            if (emCache != null) {
+                return Optional.of(emCache);
+            }
+            remocoesAntes = remocoes;
+        }
+        
+        Optional<Long> id = usuarioRepository.findIdByEmail(email);
+        id.ifPresent(valor -> {
+            synchronized (cachePositivo) {
+                if (remocoes == remocoesAntes) {
+                    cachePositivo.put(email, valor);
+                }
+            }
+        });
+        return id;
+    }
+    
+    /**
+     * Checagem para escrita (cadastro, troca de email): o "não" do filtro de Bloom dispensa o banco,
+     * mas um "talvez" é sempre confirmado no banco, nunca pelo cache positivo.
+     */
+    boolean existeNoBanco(String email) {
+        return podeExistir(email) && usuarioRepository.existsByEmail(email);
+    }
+    
+    // Entradas novas vão para o filtro já na escrita: um "talvez" a mais só custa uma consulta
+    @EventListener
+    public void aoAlterarUsuario(UsuarioAlteradoEvent evento) {
+        if (evento.getEmailAnterior() != null) {
+            removerDoCache(evento.getEmailAnterior());
+        }
+        if (evento.getEmail() == null) {
+            return;
+        }
+        if (evento.getTipo() == UsuarioAlteradoEvent.Tipo.REMOVIDO) {
+            removerDoCache(evento.getEmail());
+            return;
+        }
+        
+        adicionarAoFiltro(evento.getEmail());
+        if (insercoes.incrementAndGet() > capacidadeFiltro) {
+            log.warn("Índice de emails acima da capacidade ({}); taxa de falso positivo aumentando até a próxima reconstrução",
+                    capacidadeFiltro);
+        }
+    }
+    
+    // O id só vai para o cache positivo depois do commit. O email é adicionado ao filtro
+    // de novo para cobrir uma reconstrução que tenha começado entre a escrita e o commit.
+    // Remoção e email anterior saem do cache de novo: uma busca feita antes do commit ainda lia o valor antigo
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aposCommit(UsuarioAlteradoEvent evento) {
+        if (evento.getEmailAnterior() != null) {
+            removerDoCache(evento.getEmailAnterior());
+        }
+        if (evento.getEmail() == null) {
+            return;
+        }
+        if (evento.getTipo() == UsuarioAlteradoEvent.Tipo.REMOVIDO) {
+            removerDoCache(evento.getEmail());
+            return;
+        }
+        adicionarAoFiltro(evento.getEmail());
+        cachePositivo.put(evento.getEmail(), evento.getUsuarioId());
+    }
+    
+    private void removerDoCache(String email) {
+        synchronized (cachePositivo) {
+            remocoes++;
+            cachePositivo.remove(email);
+        }
+    }
+    
+    private void limparCache() {
+        synchronized (cachePositivo) {
+            remocoes++;
+            cachePositivo.clear();
+        }
+    }
+    
+    private void adicionarAoFiltro(String email) {
+        filtro.adicionar(email);
+        BloomFilter emConstrucao = filtroEmConstrucao;
+        if (emConstrucao != null) {
+            emConstrucao.adicionar(email);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conjunto de chaves HMAC usadas para assinar e verificar tokens, indexadas pelo "kid".
+ *
+ * As chaves são derivadas uma única vez e o parser é construído uma vez só (é imutável
+ * e thread-safe); a chave de verificação é escolhida pelo header "kid" do token.
+ * Chaves anteriores continuam aceitas durante a janela de graça, então rotacionar a
+ * chave não desloga ninguém.
+ *
+ * Configuração:
+ *   jwt.kid                     - id da chave atual (assina os novos tokens)
+ *   jwt.secret                  - segredo da chave atual
+ *   jwt.chaves-anteriores       - "kid:segredo,kid:segredo" ainda aceitos na verificação
+ *   jwt.rotacao.janela-graca-ms - por quanto tempo uma chave aposentada continua válida
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+    
+    private static final class Chave {
+        private final String kid;
+        private final SecretKey secretKey;
+        private volatile long aceitaAteMillis = Long.MAX_VALUE;
+        
+        private Chave(String kid, String segredo) {
+            this.kid = kid;
+            this.secretKey = Keys.hmacShaKeyFor(segredo.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    private final Map<String, Chave> chaves = new ConcurrentHashMap<>();
+    private final long janelaGracaMillis;
+    private final JwtParser parser;
+    private volatile Chave atual;
+    
+    public JwtKeyRing(
+            @Value("${jwt.kid:v1}") String kidAtual,
+            @Value("${jwt.secret:quantotedevo-muito-segura-secret-key-para-desenvolvimento-com-tamanho-adequado}") String segredoAtual,
+            @Value("${jwt.chaves-anteriores:}") String chavesAnteriores,
+            @Value("${jwt.rotacao.janela-graca-ms:86400000}") long janelaGracaMillis) {
+        this.janelaGracaMillis = janelaGracaMillis;
+        
+        this.atual = new Chave(kidAtual, segredoAtual);
+        chaves.put(kidAtual, atual);
+        
+        // Chaves anteriores valem pela janela de graça a partir da subida da aplicação
+        long aposentadaAte = System.currentTimeMillis() + janelaGracaMillis;
+        for (String entrada : chavesAnteriores.split(",")) {
+            int separador = entrada.indexOf(':');
+            if (separador <= 0) {
+                continue;
+            }
+            String kid = entrada.substring(0, separador).trim();
+            if (chaves.containsKey(kid)) {
+                continue;
+            }
+            Chave anterior = new Chave(kid, entrada.substring(separador + 1).trim());
+            anterior.aceitaAteMillis = aposentadaAte;
+            chaves.put(kid, anterior);
+        }
+        
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return chaveDeVerificacao(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+    
+    public String getKidAtual() {
+        return atual.kid;
+    }
+    
+    public SecretKey getChaveAssinatura() {
+        return atual.secretKey;
+    }
+    
+    public JwtParser getParser() {
+        return parser;
+    }
+    
+    /**
+     * Passa a assinar com uma nova chave. A chave anterior continua aceita
+     * na verificação até o fim da janela de graça.
+     */
+    public synchronized void rotacionar(String novoKid, String novoSegredo) {
+        if (chaves.containsKey(novoKid)) {
+            throw new IllegalArgumentException("Já existe uma chave com kid " + novoKid);
+        }
+        Chave nova = new Chave(novoKid, novoSegredo);
+        chaves.put(novoKid, nova);
+        
+        Chave anterior = atual;
+        anterior.aceitaAteMillis = System.currentTimeMillis() + janelaGracaMillis;
+        atual = nova;
+        
+        removerChavesVencidas();
+        log.info("Chave JWT rotacionada: {} -> {}", anterior.kid, novoKid);
+    }
+    
+    /**
+     * Se tokens assinados com esta chave ainda são aceitos (existe e não passou da janela de graça).
+     * Usado para os tokens em cache, que não passam de novo pelo parser.
+     */
+    public boolean aceita(String kid) {
+        Chave chave = kid != null ? chaves.get(kid) : null;
+        return chave != null && chave.aceitaAteMillis >= System.currentTimeMillis();
+    }
+    
+    private Key chaveDeVerificacao(String kid) {
+        // Tokens emitidos antes do kid existir foram assinados com a chave atual
+        Chave chave = kid != null ? chaves.get(kid) : atual;
+        if (chave == null) {
+            throw new JwtException("Chave de assinatura desconhecida: " + kid);
+        }
+        if (chave.aceitaAteMillis < System.currentTimeMillis()) {
+            throw new JwtException("Chave de assinatura aposentada: " + kid);
+        }
+        return chave.secretKey;
+    }
+    
+    private void removerChavesVencidas() {
+        long agora = System.currentTimeMillis();
+        chaves.values().removeIf(c -> c != atual && c.aceitaAteMillis < agora);
+    }
+}
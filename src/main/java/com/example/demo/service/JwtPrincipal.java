@@ -0,0 +1,21 @@
+package com.example.demo.service;
+
+import lombok.Value;
+
+/**
+ * Dados já verificados de um token JWT (assinatura e expiração conferidas).
+ * Imutável, pode ser compartilhado entre requisições via cache.
+ */
+@Value
+public class JwtPrincipal {
+    
+    String jti;
+    String kid;          // Chave que assinou o token: conferida de novo a cada uso do cache
+    Long userId;
+    String email;
+    long expiraEmMillis;
+    
+    public boolean isExpirado(long agoraMillis) {
+        return expiraEmMillis <= agoraMillis;
+    }
+}
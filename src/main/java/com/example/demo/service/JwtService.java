@@ -1,94 +1,123 @@
 package com.example.demo.service;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class JwtService {
     
-    @Value("${jwt.secret:quantotedevo-muito-segura-secret-key-para-desenvolvimento-com-tamanho-adequado}")
-    private String secretKey;
+    private final long expiration;
+    private final JwtKeyRing keyRing;
+    private final RevogacaoTokenService revogacaoTokenService;
+    private final CacheTokens cacheTokens;
     
-    @Value("${jwt.expiration:86400000}") // 24 horas em milissegundos
-    private Long expiration;
+    public JwtService(JwtKeyRing keyRing,
+                      RevogacaoTokenService revogacaoTokenService,
+                      @Value("${jwt.expiration:86400000}") long expiration, // 24 horas em milissegundos
+                      @Value("${jwt.cache.max-entradas:10000}") int maxEntradasCache) {
+        this.expiration = expiration;
+        this.keyRing = keyRing;
+        this.revogacaoTokenService = revogacaoTokenService;
+        this.cacheTokens = new CacheTokens(maxEntradasCache);
+    }
     
     public String generateToken(Long userId, String email) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
         
         return Jwts.builder()
+                .header().keyId(keyRing.getKidAtual()).and()
+                .id(UUID.randomUUID().toString())
                 .subject(userId.toString())
                 .claim("email", email)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(keyRing.getChaveAssinatura(), SignatureAlgorithm.HS256)
                 .compact();
     }
     
-    public Long getUserIdFromToken(String token) {
+    /**
+     * Verifica assinatura e expiração do token uma única vez e devolve os dados do usuário.
+     * Tokens já verificados ficam em cache até expirarem, então chamadas repetidas
+     * com o mesmo token não refazem a verificação da assinatura.
+     * Tokens revogados (logout/refresh) ou assinados com uma chave já aposentada
+     * são recusados mesmo estando em cache.
+     */
+    public Optional<JwtPrincipal> validarToken(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        
+        long agora = System.currentTimeMillis();
+        JwtPrincipal emCache = cacheTokens.buscar(token, agora);
+        if (emCache != null) {
+            // A chave pode ter sido aposentada depois que o token entrou no cache
+            return !keyRing.aceita(emCache.getKid()) || revogacaoTokenService.isRevogado(emCache.getJti())
+                    ? Optional.empty()
+                    : Optional.of(emCache);
+        }
+        
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSignInKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            // Parser pré-construído; a chave de verificação é escolhida pelo "kid" do token
+            Jws<Claims> jws = keyRing.getParser().parseSignedClaims(token);
+            Claims claims = jws.getPayload();
+            // Sem "kid", o token foi verificado com a chave atual
+            String kid = jws.getHeader().getKeyId() != null ? jws.getHeader().getKeyId() : keyRing.getKidAtual();
+            
+            JwtPrincipal principal = new JwtPrincipal(
+                    claims.getId(),
+                    kid,
+                    Long.parseLong(claims.getSubject()),
+                    claims.get("email", String.class),
+                    claims.getExpiration().getTime());
             
-            return Long.parseLong(claims.getSubject());
-        } catch (Exception e) {
-            throw new RuntimeException("Token inválido", e);
+            if (principal.isExpirado(agora)) {
+                return Optional.empty();
+            }
+            
+            cacheTokens.guardar(token, principal, agora);
+            
+            if (revogacaoTokenService.isRevogado(principal.getJti())) {
+                return Optional.empty();
+            }
+            return Optional.of(principal);
+        } catch (JwtException | IllegalArgumentException e) {
+            // ExpiredJwtException também cai aqui
+            return Optional.empty();
         }
     }
     
+    /**
+     * Revoga o token informado. Tokens inválidos ou já expirados são ignorados.
+     */
+    public void revogarToken(String token) {
+        validarToken(token).ifPresent(revogacaoTokenService::revogar);
+    }
+    
+    public Long getUserIdFromToken(String token) {
+        return validarToken(token)
+                .map(JwtPrincipal::getUserId)
+                .orElseThrow(() -> new RuntimeException("Token inválido"));
+    }
+    
     public String getEmailFromToken(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSignInKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            
-            return claims.get("email", String.class);
-        } catch (Exception e) {
-            throw new RuntimeException("Token inválido", e);
-        }
+        return validarToken(token)
+                .map(JwtPrincipal::getEmail)
+                .orElseThrow(() -> new RuntimeException("Token inválido"));
     }
     
     public boolean isTokenValid(String token) {
-        try {
-            Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            System.out.println("Token inválido: " + e.getMessage());
-            return false;
-        }
+        return validarToken(token).isPresent();
     }
     
     public boolean isTokenExpired(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-            
-            return claims.getExpiration().before(new Date());
-        } catch (JwtException | IllegalArgumentException e) {
-            return true;
-        }
-    }
-    
-    private SecretKey getSignInKey() {
-        // Usar o secretKey diretamente se for longo suficiente
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return validarToken(token)
+                .map(p -> p.isExpirado(System.currentTimeMillis()))
+                .orElse(true);
     }
 }
@@ -28,6 +28,7 @@ public class PagamentoExternoService {
     private final ContaService contaService;
     private final UsuarioService usuarioService;
     private final NotificacaoService notificacaoService;
+    private final RetentativaOtimista retentativaOtimista;
     
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
@@ -98,47 +99,50 @@ public class PagamentoExternoService {
         return new PagamentoExternoDTO(pagamento);
     }
     
-    @Transactional
+    // Refeita em conflito de versão; a notificação só sai depois do commit
     public PagamentoExternoDTO confirmarPagamento(String id, ConfirmarPagamentoExternoDTO request) {
         log.info("Confirmando pagamento para link: {}", id);
         
-        PagamentoExterno pagamento = pagamentoExternoRepository.findById(id)
-            .orElseThrow(() -> new RecursoNaoEncontradoException("Link de pagamento não encontrado"));
-        
-        // Validações
-        if (pagamento.getPago()) {
-            throw new NegocioException("Este pagamento já foi confirmado");
-        }
-        
-        if (pagamento.isExpirado()) {
-            throw new NegocioException("Este link de pagamento expirou");
-        }
-        
-        // Confirmar pagamento
-        pagamento.setPago(true);
-        pagamento.setDataPagamento(LocalDateTime.now());
-        pagamento.setFormaPagamento(request.getFormaPagamento());
-        
-        // Combinar observações se existirem ambas
-        String observacoesCombinadas = combinarObservacoes(
-            pagamento.getObservacoes(), 
-            request.getObservacoes()
-        );
-        pagamento.setObservacoes(observacoesCombinadas);
-        
-        PagamentoExterno pagamentoAtualizado = pagamentoExternoRepository.save(pagamento);
+        PagamentoExternoDTO confirmado = retentativaOtimista.executar("Confirmação do pagamento " + id, () -> {
+            PagamentoExterno pagamento = pagamentoExternoRepository.findById(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Link de pagamento não encontrado"));
+            
+            // Validações
+            if (pagamento.getPago()) {
+                throw new NegocioException("Este pagamento já foi confirmado");
+            }
+            
+            if (pagamento.isExpirado()) {
+                throw new NegocioException("Este link de pagamento expirou");
+            }
+            
+            // Confirmar pagamento
+            pagamento.setPago(true);
+            pagamento.setDataPagamento(LocalDateTime.now());
+            pagamento.setFormaPagamento(request.getFormaPagamento());
+            
+            // Combinar observações se existirem ambas
+            String observacoesCombinadas = combinarObservacoes(
+                pagamento.getObservacoes(), 
+                request.getObservacoes()
+            );
+            pagamento.setObservacoes(observacoesCombinadas);
+            
+            PagamentoExterno pagamentoAtualizado = pagamentoExternoRepository.save(pagamento);
+            return new PagamentoExternoDTO(pagamentoAtualizado);
+        });
         
         // Notificar o criador sobre o pagamento confirmado
         notificacaoService.notificarPagamentoExternoConfirmado(
-            pagamento.getCriadoPorId(),
-            pagamento.getId(),
-            pagamento.getNomeParticipante(),
-            pagamento.getValor(),
+            confirmado.getCriadoPorId(),
+            confirmado.getId(),
+            confirmado.getNomeParticipante(),
+            confirmado.getValor(),
             request.getFormaPagamento()
         );
         
-        log.info("Pagamento confirmado para link: {} por {}", id, pagamento.getNomeParticipante());
-        return new PagamentoExternoDTO(pagamentoAtualizado);
+        log.info("Pagamento confirmado para link: {} por {}", id, confirmado.getNomeParticipante());
+        return confirmado;
     }
     
     @Transactional(readOnly = true)
@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ConflitoConcorrenciaException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Executa uma operação de pagamento numa transação própria e a refaz do zero quando outra
+ * transação alterou as mesmas linhas antes (conflito de @Version, ou timeout/deadlock esperando
+ * o lock de linha da concorrente). Entre as tentativas espera
+ * um intervalo crescente com jitter, para as concorrentes não colidirem de novo em sincronia.
+ * Esgotadas as tentativas, responde 409.
+ */
+@Slf4j
+@Component
+public class RetentativaOtimista {
+    
+    private final TransactionTemplate transacao;
+    private final int maximoTentativas;
+    private final long esperaBaseMs;
+    
+    private final LongAdder execucoes = new LongAdder();
+    private final LongAdder conflitos = new LongAdder();
+    private final LongAdder esgotadas = new LongAdder();
+    
+    public RetentativaOtimista(PlatformTransactionManager transactionManager,
+                               @Value("${concorrencia.tentativas:5}") int maximoTentativas,
+                               @Value("${concorrencia.espera-base-ms:10}") long esperaBaseMs) {
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.maximoTentativas = Math.max(1, maximoTentativas);
+        this.esperaBaseMs = Math.max(0, esperaBaseMs);
+    }
+    
+    public <T> T executar(String operacao, Supplier<T> trabalho) {
+        // Dentro de uma transação maior não dá para refazer só este pedaço: quem abriu a transação decide
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return trabalho.get();
+        }
+        
+        execucoes.increment();
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return transacao.execute(status -> trabalho.get());
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException e) {
+                conflitos.increment();
+                if (tentativa >= maximoTentativas) {
+                    esgotadas.increment();
+                    log.warn("{}: conflito de concorrência após {} tentativa(s)", operacao, tentativa);
+                    throw new ConflitoConcorrenciaException(
+                        "Registro alterado por outra operação ao mesmo tempo. Tente novamente.", e);
+                }
+                log.debug("{}: conflito de concorrência na tentativa {}, refazendo", operacao, tentativa);
+                esperar(tentativa);
+            }
+        }
+    }
+    
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> dados = new LinkedHashMap<>();
+        dados.put("tentativasMaximas", maximoTentativas);
+        dados.put("execucoes", execucoes.sum());
+        dados.put("conflitos", conflitos.sum());
+        dados.put("esgotadas", esgotadas.sum());
+        return dados;
+    }
+    
+    private void esperar(int tentativa) {
+        if (esperaBaseMs == 0) {
+            return;
+        }
+        long limite = esperaBaseMs << Math.min(tentativa - 1, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(limite / 2, limite + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflitoConcorrenciaException("Operação interrompida durante nova tentativa", e);
+        }
+    }
+}
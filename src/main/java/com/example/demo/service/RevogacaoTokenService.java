@@ -0,0 +1,157 @@
+package com.example.demo.service;
+
+import com.example.demo.model.TokenRevogado;
+import com.example.demo.repository.TokenRevogadoRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revogação de tokens JWT (logout e refresh).
+ * Os jti revogados ficam na tabela tokens_revogados e espelhados em memória:
+ * o filtro de Bloom descarta sem custo os tokens que nunca foram revogados
+ * e o mapa exato confirma os poucos casos de "pode conter".
+ */
+@Slf4j
+@Service
+public class RevogacaoTokenService {
+    
+    private static final double TAXA_FALSO_POSITIVO = 0.0001;
+    
+    private final TokenRevogadoRepository tokenRevogadoRepository;
+    private final long capacidadeInicial;
+    
+    // jti -> expiração em millis (para poda sem ir ao banco)
+    private final Map<String, Long> revogados = new ConcurrentHashMap<>();
+    private volatile BloomFilter filtro;
+    private volatile long capacidadeFiltro;
+    private volatile LocalDateTime ultimaSincronizacao = LocalDateTime.now();
+    
+    public RevogacaoTokenService(TokenRevogadoRepository tokenRevogadoRepository,
+                                 @Value("${jwt.revogacao.capacidade:100000}") long capacidadeInicial) {
+        this.tokenRevogadoRepository = tokenRevogadoRepository;
+        this.capacidadeInicial = Math.max(1000, capacidadeInicial);
+        this.capacidadeFiltro = this.capacidadeInicial;
+        this.filtro = new BloomFilter(capacidadeFiltro, TAXA_FALSO_POSITIVO);
+    }
+    
+    @PostConstruct
+    public void carregar() {
+        LocalDateTime agora = LocalDateTime.now();
+        List<TokenRevogado> ativos = tokenRevogadoRepository.findByExpiraEmAfter(agora);
+        ativos.forEach(t -> registrarEmMemoria(t.getJti(), paraMillis(t.getExpiraEm())));
+        ultimaSincronizacao = agora;
+        log.info("Revogação de tokens: {} token(s) revogado(s) carregado(s)", ativos.size());
+    }
+    
+    /**
+     * Verificação feita a cada requisição autenticada. Não acessa o banco.
+     */
+    public boolean isRevogado(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (!filtro.podeConter(jti)) {
+            return false;
+        }
+        return revogados.containsKey(jti);
+    }
+    
+    @Transactional
+    public void revogar(JwtPrincipal principal) {
+        String jti = principal.getJti();
+        if (jti == null || revogados.containsKey(jti)) {
+            return;
+        }
+        
+        if (!tokenRevogadoRepository.existsById(jti)) {
+            tokenRevogadoRepository.save(TokenRevogado.builder()
+                    .jti(jti)
+                    .usuarioId(principal.getUserId())
+                    .expiraEm(paraLocalDateTime(principal.getExpiraEmMillis()))
+                    .build());
+        }
+        registrarEmMemoria(jti, principal.getExpiraEmMillis());
+    }
+    
+    /**
+     * Traz revogações gravadas por outras instâncias da aplicação.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revogacao.sincronizacao-ms:30000}")
+    public void sincronizar() {
+        LocalDateTime agora = LocalDateTime.now();
+        // Pequena margem para não perder gravações concorrentes com a última leitura
+        LocalDateTime desde = ultimaSincronizacao.minusSeconds(5);
+        
+        tokenRevogadoRepository.findByDataRevogacaoAfterAndExpiraEmAfter(desde, agora)
+                .forEach(t -> registrarEmMemoria(t.getJti(), paraMillis(t.getExpiraEm())));
+        ultimaSincronizacao = agora;
+    }
+    
+    /**
+     * Remove revogações de tokens que já expiraram (não seriam aceitos de qualquer forma)
+     * e reconstrói o filtro de Bloom, que não permite remoção.
+     */
+    @Scheduled(cron = "${jwt.revogacao.limpeza-cron:0 15 * * * *}")
+    @Transactional
+    public void limparExpirados() {
+        long agoraMillis = System.currentTimeMillis();
+        int removidosBanco = tokenRevogadoRepository.deleteExpirados(paraLocalDateTime(agoraMillis));
+        revogados.values().removeIf(expiraEm -> expiraEm <= agoraMillis);
+        
+        reconstruirFiltro();
+        
+        if (removidosBanco > 0) {
+            log.info("Revogação de tokens: {} registro(s) expirado(s) removido(s), {} ativo(s)",
+                    removidosBanco, revogados.size());
+        }
+    }
+    
+    public int totalRevogados() {
+        return revogados.size();
+    }
+    
+    private void registrarEmMemoria(String jti, long expiraEmMillis) {
+        // Mapa primeiro: se o filtro for trocado no meio, a reconstrução já enxerga o jti
+        revogados.put(jti, expiraEmMillis);
+        filtro.adicionar(jti);
+        
+        if (revogados.size() > capacidadeFiltro) {
+            reconstruirFiltro();
+        }
+    }
+    
+    private synchronized void reconstruirFiltro() {
+        long capacidade = capacidadeInicial;
+        while (capacidade < revogados.size() * 2L) {
+            capacidade *= 2;
+        }
+        
+        BloomFilter novo = new BloomFilter(capacidade, TAXA_FALSO_POSITIVO);
+        revogados.keySet().forEach(novo::adicionar);
+        
+        capacidadeFiltro = capacidade;
+        filtro = novo;
+        
+        // Revogações que chegaram durante a reconstrução
+        revogados.keySet().forEach(novo::adicionar);
+    }
+    
+    private static LocalDateTime paraLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+    
+    private static long paraMillis(LocalDateTime dataHora) {
+        return dataHora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
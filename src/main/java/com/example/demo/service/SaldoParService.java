@@ -0,0 +1,339 @@
+package com.example.demo.service;
+
+import com.example.demo.config.ContadorSql;
+import com.example.demo.model.Divida;
+import com.example.demo.model.Divisao;
+import com.example.demo.model.SaldoPar;
+import com.example.demo.repository.DividaRepository;
+import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.SaldoParRepository;
+import com.example.demo.repository.TotalPorPar;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Livro de saldos por par de usuários (tabela saldo_par).
+ * Cada criação, pagamento ou remoção de Divisao/Divida aplica um delta na mesma
+ * transação da alteração, então /saldo-com e /saldos leem uma linha por contato
+ * em vez de somar todas as divisões e dívidas em aberto.
+ * A reconstrução agendada recalcula tudo a partir das tabelas de origem e corrige divergências.
+ */
+@Slf4j
+@Service
+public class SaldoParService {
+    
+    // Incremento atômico no banco (a linha fica travada até o fim da transação), em SQL para ir num lote JDBC
+    private static final String SQL_INCREMENTAR = "UPDATE saldo_par SET valor = valor + ?, abertas = abertas + ?, " +
+        "data_atualizacao = ? WHERE usuario_a_id = ? AND usuario_b_id = ?";
+    private static final String SQL_CRIAR = "INSERT INTO saldo_par (usuario_a_id, usuario_b_id, valor, abertas, data_atualizacao) " +
+        "VALUES (?, ?, 0, 0, ?)";
+    
+    private final SaldoParRepository saldoParRepository;
+    private final DivisaoRepository divisaoRepository;
+    private final DividaRepository dividaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacaoNova;
+    
+    public SaldoParService(SaldoParRepository saldoParRepository,
+                           DivisaoRepository divisaoRepository,
+                           DividaRepository dividaRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager) {
+        this.saldoParRepository = saldoParRepository;
+        this.divisaoRepository = divisaoRepository;
+        this.dividaRepository = dividaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacaoNova = new TransactionTemplate(transactionManager);
+        this.transacaoNova.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    // ===== Leitura =====
+    
+    /**
+     * Saldo entre dois usuários: positivo = o outro me deve, negativo = eu devo para ele.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal saldoEntre(Long usuarioId, Long outroUsuarioId) {
+        if (usuarioId.equals(outroUsuarioId)) {
+            return BigDecimal.ZERO;
+        }
+        Par par = Par.de(usuarioId, outroUsuarioId);
+        return saldoParRepository.findByUsuarioAIdAndUsuarioBId(par.a(), par.b())
+            .map(s -> s.saldoPara(usuarioId))
+            .orElse(BigDecimal.ZERO);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<SaldoPar> listarAbertos(Long usuarioId) {
+        return saldoParRepository.findAbertosPorUsuario(usuarioId);
+    }
+    
+    // ===== Escrita (sempre dentro da transação de quem altera a origem) =====
+    
+    // Chamar com a divisão ainda em aberto, logo após salvá-la
+    @Transactional
+    public void registrarDivisoes(Collection<Divisao> divisoes) {
+        Movimentos movimentos = new Movimentos();
+        divisoes.forEach(d -> movimentos.divisao(d, 1));
+        aplicar(movimentos);
+    }
+    
+    // Chamar antes de marcar a divisão como paga ou de removê-la
+    @Transactional
+    public void baixarDivisoes(Collection<Divisao> divisoes) {
+        Movimentos movimentos = new Movimentos();
+        divisoes.forEach(d -> movimentos.divisao(d, -1));
+        aplicar(movimentos);
+    }
+    
+    @Transactional
+    public void registrarDivida(Divida divida) {
+        Movimentos movimentos = new Movimentos();
+        movimentos.divida(divida, 1);
+        aplicar(movimentos);
+    }
+    
+    @Transactional
+    public void baixarDivida(Divida divida) {
+        Movimentos movimentos = new Movimentos();
+        movimentos.divida(divida, -1);
+        aplicar(movimentos);
+    }
+    
+    // Baixa em lote: totais por par do que acabou de ser marcado como pago por um UPDATE em massa
+    @Transactional
+    public void baixarTotais(Collection<TotalPorPar> totais) {
+        Movimentos movimentos = new Movimentos();
+        totais.forEach(t -> movimentos.movimento(t.getDevedorId(), t.getCredorId(), t.getTotal(), -1, t.getQuantidade().intValue()));
+        aplicar(movimentos);
+    }
+    
+    /**
+     * Nova divisão de uma conta: baixa dos totais em aberto das divisões substituídas e registro das novas
+     * viram um único delta por par (quem continua com o mesmo valor nem aparece no lote).
+     */
+    @Transactional
+    public void substituirDivisoes(Collection<TotalPorPar> anteriores, Collection<Divisao> novas) {
+        Movimentos movimentos = new Movimentos();
+        anteriores.forEach(t -> movimentos.movimento(t.getDevedorId(), t.getCredorId(), t.getTotal(), -1, t.getQuantidade().intValue()));
+        novas.forEach(d -> movimentos.divisao(d, 1));
+        aplicar(movimentos);
+    }
+    
+    @Transactional
+    public void removerUsuario(Long usuarioId) {
+        saldoParRepository.deleteByUsuario(usuarioId);
+    }
+    
+    // Um lote JDBC com o incremento de todos os pares; os pares que ainda não têm linha são criados
+    // (também em lote) e recebem o incremento num segundo lote
+    private void aplicar(Movimentos movimentos) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        // TreeMap: pares sempre atualizados na mesma ordem, evitando deadlock entre transações
+        List<Par> pares = new ArrayList<>();
+        List<Object[]> incrementos = new ArrayList<>();
+        movimentos.porPar.forEach((par, delta) -> {
+            if (delta.valor.signum() == 0 && delta.abertas == 0) {
+                return;
+            }
+            pares.add(par);
+            incrementos.add(new Object[] {delta.valor, delta.abertas, agora, par.a(), par.b()});
+        });
+        if (pares.isEmpty()) {
+            return;
+        }
+        
+        List<Par> semLinha = new ArrayList<>();
+        List<Object[]> pendentes = new ArrayList<>();
+        int[] alteradas = incrementar(incrementos);
+        for (int i = 0; i < alteradas.length; i++) {
+            if (alteradas[i] == 0) {
+                semLinha.add(pares.get(i));
+                pendentes.add(incrementos.get(i));
+            }
+        }
+        if (semLinha.isEmpty()) {
+            return;
+        }
+        
+        criarLinhas(semLinha, agora);
+        alteradas = incrementar(pendentes);
+        for (int i = 0; i < alteradas.length; i++) {
+            if (alteradas[i] == 0) {
+                throw new IllegalStateException("Saldo do par " + semLinha.get(i) + " não encontrado após criação");
+            }
+        }
+    }
+    
+    private int[] incrementar(List<Object[]> incrementos) {
+        ContadorSql.registrar();
+        return jdbcTemplate.batchUpdate(SQL_INCREMENTAR, incrementos);
+    }
+    
+    // As linhas zeradas são criadas em transação própria: se outra requisição criar um dos pares
+    // ao mesmo tempo, a violação da chave única não invalida a transação principal.
+    // Nesse caso (raro) refaz par a par, ignorando os que já existem
+    private void criarLinhas(List<Par> pares, Timestamp agora) {
+        List<Object[]> linhas = new ArrayList<>(pares.size());
+        for (Par par : pares) {
+            linhas.add(new Object[] {par.a(), par.b(), agora});
+        }
+        try {
+            transacaoNova.executeWithoutResult(status -> {
+                ContadorSql.registrar();
+                jdbcTemplate.batchUpdate(SQL_CRIAR, linhas);
+            });
+        } catch (DataIntegrityViolationException e) {
+            pares.forEach(this::criarLinha);
+        }
+    }
+    
+    private void criarLinha(Par par) {
+        try {
+            transacaoNova.executeWithoutResult(status -> saldoParRepository.saveAndFlush(SaldoPar.builder()
+                .usuarioAId(par.a())
+                .usuarioBId(par.b())
+                .build()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Saldo do par {} criado por outra transação", par);
+        }
+    }
+    
+    // ===== Reconstrução =====
+    
+    /**
+     * Recalcula o livro a partir de divisões e dívidas em aberto e corrige as linhas divergentes.
+     * O livro fica travado durante a reconstrução; alterações concorrentes esperam e aplicam
+     * o delta delas sobre o valor já corrigido.
+     *
+     * @return quantidade de pares corrigidos
+     */
+    @Scheduled(cron = "${saldos.reconstrucao-cron:0 30 3 * * *}")
+    @Transactional
+    public int reconstruir() {
+        long inicio = System.currentTimeMillis();
+        List<SaldoPar> atuais = saldoParRepository.findAllParaReconstrucao();
+        
+        Map<Par, Delta> esperado = new HashMap<>();
+        acumular(esperado, divisaoRepository.somarEmAbertoPorPar());
+        acumular(esperado, dividaRepository.somarEmAbertoPorPar());
+        
+        int divergencias = 0;
+        LocalDateTime agora = LocalDateTime.now();
+        for (SaldoPar saldo : atuais) {
+            Delta correto = esperado.remove(new Par(saldo.getUsuarioAId(), saldo.getUsuarioBId()));
+            BigDecimal valor = correto != null ? correto.valor : BigDecimal.ZERO;
+            int abertas = correto != null ? correto.abertas : 0;
+            if (saldo.getValor().compareTo(valor) != 0 || saldo.getAbertas() != abertas) {
+                log.warn("Saldo do par ({}, {}) divergente: livro={} ({} em aberto), origem={} ({} em aberto)",
+                    saldo.getUsuarioAId(), saldo.getUsuarioBId(), saldo.getValor(), saldo.getAbertas(), valor, abertas);
+                saldo.setValor(valor);
+                saldo.setAbertas(abertas);
+                saldo.setDataAtualizacao(agora);
+                divergencias++;
+            }
+        }
+        
+        for (Map.Entry<Par, Delta> faltando : esperado.entrySet()) {
+            Par par = faltando.getKey();
+            log.warn("Saldo do par ({}, {}) ausente no livro: origem={} ({} em aberto)",
+                par.a(), par.b(), faltando.getValue().valor, faltando.getValue().abertas);
+            saldoParRepository.save(SaldoPar.builder()
+                .usuarioAId(par.a())
+                .usuarioBId(par.b())
+                .valor(faltando.getValue().valor)
+                .abertas(faltando.getValue().abertas)
+                .dataAtualizacao(agora)
+                .build());
+            divergencias++;
+        }
+        
+        log.info("Livro de saldos reconstruído: {} par(es) verificados, {} divergência(s) corrigida(s) em {} ms",
+            atuais.size() + esperado.size(), divergencias, System.currentTimeMillis() - inicio);
+        return divergencias;
+    }
+    
+    private static void acumular(Map<Par, Delta> esperado, List<TotalPorPar> totais) {
+        for (TotalPorPar total : totais) {
+            Par par = Par.de(total.getDevedorId(), total.getCredorId());
+            esperado.computeIfAbsent(par, p -> new Delta())
+                .somar(par.sinal(total.getCredorId(), total.getTotal()), total.getQuantidade().intValue());
+        }
+    }
+    
+    // ===== Estruturas auxiliares =====
+    
+    private record Par(Long a, Long b) implements Comparable<Par> {
+        
+        static Par de(Long usuario1, Long usuario2) {
+            return usuario1 < usuario2 ? new Par(usuario1, usuario2) : new Par(usuario2, usuario1);
+        }
+        
+        // Valor com o sinal do livro: positivo quando o credor é o usuário A
+        BigDecimal sinal(Long credorId, BigDecimal valor) {
+            return credorId.equals(a) ? valor : valor.negate();
+        }
+        
+        @Override
+        public int compareTo(Par outro) {
+            int cmp = a.compareTo(outro.a);
+            return cmp != 0 ? cmp : b.compareTo(outro.b);
+        }
+    }
+    
+    private static final class Delta {
+        private BigDecimal valor = BigDecimal.ZERO;
+        private int abertas;
+        
+        void somar(BigDecimal valor, int abertas) {
+            this.valor = this.valor.add(valor);
+            this.abertas += abertas;
+        }
+    }
+    
+    private static final class Movimentos {
+        private final Map<Par, Delta> porPar = new TreeMap<>();
+        
+        // sentido: 1 ao registrar, -1 ao baixar
+        void divisao(Divisao divisao, int sentido) {
+            if (Boolean.TRUE.equals(divisao.getPago())) {
+                return; // Divisão paga não entra no livro
+            }
+            movimento(divisao.getUsuario().getId(), divisao.getConta().getCriador().getId(), divisao.getValor(), sentido, 1);
+        }
+        
+        void divida(Divida divida, int sentido) {
+            if (Boolean.TRUE.equals(divida.getPaga())) {
+                return;
+            }
+            movimento(divida.getUsuarioDevedor().getId(), divida.getUsuarioCredor().getId(), divida.getValor(), sentido, 1);
+        }
+        
+        void movimento(Long devedorId, Long credorId, BigDecimal valor, int sentido, int quantidade) {
+            if (devedorId.equals(credorId)) {
+                return; // Parte do próprio usuário não é dívida com ninguém
+            }
+            Par par = Par.de(devedorId, credorId);
+            BigDecimal assinado = par.sinal(credorId, valor);
+            porPar.computeIfAbsent(par, p -> new Delta())
+                .somar(sentido > 0 ? assinado : assinado.negate(), sentido * quantidade);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ServicoSobrecarregadoException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hash e verificação de senhas (BCrypt) em um pool dedicado e limitado.
+ * Uma rajada de logins não consome as threads do Tomcat: quando a fila enche,
+ * a requisição é recusada na hora com 503 + Retry-After.
+ */
+@Slf4j
+@Service
+public class SenhaService {
+    
+    private static final Pattern CUSTO_BCRYPT = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+    
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int custoAlvo;
+    private final long timeoutMillis;
+    private final long retryAfterSegundos;
+    
+    private final Estatisticas estatisticasHash = new Estatisticas();
+    private final Estatisticas estatisticasVerificacao = new Estatisticas();
+    private final LongAdder rejeicoes = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+    
+    public SenhaService(PasswordEncoder passwordEncoder,
+                        @Value("${seguranca.bcrypt.custo:10}") int custoAlvo,
+                        @Value("${seguranca.bcrypt.threads:0}") int threads,
+                        @Value("${seguranca.bcrypt.fila:64}") int capacidadeFila,
+                        @Value("${seguranca.bcrypt.timeout-ms:5000}") long timeoutMillis,
+                        @Value("${seguranca.bcrypt.retry-after-segundos:2}") long retryAfterSegundos) {
+        this.passwordEncoder = passwordEncoder;
+        this.custoAlvo = custoAlvo;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSegundos = retryAfterSegundos;
+        
+        // Padrão: metade dos núcleos, para sobrar CPU para o resto da aplicação
+        int numeroThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                numeroThreads, numeroThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacidadeFila)),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    public String codificar(String senha) {
+        return executar(() -> passwordEncoder.encode(senha), estatisticasHash);
+    }
+    
+    public boolean verificar(String senha, String hash) {
+        return executar(() -> passwordEncoder.matches(senha, hash), estatisticasVerificacao);
+    }
+    
+    /**
+     * Indica se o hash foi gerado com custo diferente do configurado
+     * (ex.: custo aumentado depois que o usuário se cadastrou).
+     */
+    public boolean precisaRehash(String hash) {
+        if (hash == null) {
+            return false;
+        }
+        Matcher matcher = CUSTO_BCRYPT.matcher(hash);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != custoAlvo;
+    }
+    
+    public void registrarRehash() {
+        rehashes.increment();
+    }
+    
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> dados = new LinkedHashMap<>();
+        dados.put("custo", custoAlvo);
+        dados.put("threads", executor.getMaximumPoolSize());
+        dados.put("ativas", executor.getActiveCount());
+        dados.put("fila", executor.getQueue().size());
+        dados.put("capacidadeFila", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        dados.put("rejeicoes", rejeicoes.sum());
+        dados.put("rehashes", rehashes.sum());
+        dados.put("hash", estatisticasHash.resumo());
+        dados.put("verificacao", estatisticasVerificacao.resumo());
+        return dados;
+    }
+    
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+    
+    private <T> T executar(Callable<T> tarefa, Estatisticas estatisticas) {
+        long enfileirado = System.nanoTime();
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(() -> {
+                long inicio = System.nanoTime();
+                try {
+                    return tarefa.call();
+                } finally {
+                    estatisticas.registrar(inicio - enfileirado, System.nanoTime() - inicio);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejeicoes.increment();
+            log.warn("Pool de BCrypt saturado ({} na fila), recusando requisição", executor.getQueue().size());
+            throw new ServicoSobrecarregadoException(
+                    "Muitas requisições de autenticação no momento. Tente novamente em instantes.",
+                    retryAfterSegundos);
+        }
+        
+        try {
+            return futuro.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rejeicoes.increment();
+            throw new ServicoSobrecarregadoException(
+                    "Tempo de autenticação excedido. Tente novamente em instantes.",
+                    retryAfterSegundos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando verificação de senha", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Erro ao processar senha", causa);
+        }
+    }
+    
+    /**
+     * Contadores de latência sem lock (espera na fila e execução, em nanossegundos).
+     */
+    private static class Estatisticas {
+        private final LongAdder chamadas = new LongAdder();
+        private final LongAdder esperaTotal = new LongAdder();
+        private final LongAdder execucaoTotal = new LongAdder();
+        private final LongAccumulator execucaoMaxima = new LongAccumulator(Long::max, 0);
+        
+        void registrar(long esperaNanos, long execucaoNanos) {
+            chamadas.increment();
+            esperaTotal.add(esperaNanos);
+            execucaoTotal.add(execucaoNanos);
+            execucaoMaxima.accumulate(execucaoNanos);
+        }
+        
+        Map<String, Object> resumo() {
+            long n = chamadas.sum();
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("chamadas", n);
+            dados.put("esperaMediaMs", n == 0 ? 0.0 : esperaTotal.sum() / (double) n / 1_000_000);
+            dados.put("execucaoMediaMs", n == 0 ? 0.0 : execucaoTotal.sum() / (double) n / 1_000_000);
+            dados.put("execucaoMaximaMs", execucaoMaxima.get() / 1_000_000.0);
+            return dados;
+        }
+    }
+}
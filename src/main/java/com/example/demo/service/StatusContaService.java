@@ -0,0 +1,90 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ContaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Transição agendada de status das contas em aberto:
+ * vencidas e não pagas passam a VENCIDA; no prazo e com alguma divisão paga passam a PARCIALMENTE_PAGA.
+ * Roda em lotes de UPDATE por id, cada um na sua transação, sem carregar entidades,
+ * então os bloqueios duram só o lote e o status fica consultável pelo índice (status, vencimento).
+ */
+@Slf4j
+@Service
+public class StatusContaService {
+    
+    private final ContaRepository contaRepository;
+    private final TransactionTemplate transacao;
+    private final int tamanhoLote;
+    
+    public StatusContaService(ContaRepository contaRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${contas.status.tamanho-lote:500}") int tamanhoLote) {
+        this.contaRepository = contaRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = Math.max(1, tamanhoLote);
+    }
+    
+    /**
+     * Resultado de uma execução: linhas alteradas por transição.
+     */
+    public record Resultado(int vencidas, int parcialmentePagas) {
+    }
+    
+    @Scheduled(cron = "${contas.status.cron:0 5 0 * * *}")
+    public Resultado atualizarStatus() {
+        LocalDate hoje = LocalDate.now();
+        // Vencidas primeiro: uma conta atrasada com divisões pagas fica VENCIDA, não PARCIALMENTE_PAGA
+        int vencidas = processarEmLotes("VENCIDA", hoje,
+            (aposId, limite) -> contaRepository.findIdsParaVencer(hoje, aposId, limite),
+            contaRepository::marcarVencidas);
+        int parciais = processarEmLotes("PARCIALMENTE_PAGA", hoje,
+            (aposId, limite) -> contaRepository.findIdsParcialmentePagas(hoje, aposId, limite),
+            contaRepository::marcarParcialmentePagas);
+        return new Resultado(vencidas, parciais);
+    }
+    
+    private int processarEmLotes(String transicao, LocalDate hoje,
+                                 BiFunction<Long, Limit, List<Long>> candidatos,
+                                 BiFunction<List<Long>, LocalDate, Integer> atualizar) {
+        long inicio = System.currentTimeMillis();
+        long aposId = 0L;
+        int lotes = 0;
+        int total = 0;
+        
+        while (true) {
+            long inicioLote = System.currentTimeMillis();
+            List<Long> ids = candidatos.apply(aposId, Limit.of(tamanhoLote));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer alteradas = transacao.execute(status -> atualizar.apply(ids, hoje));
+            int linhas = alteradas != null ? alteradas : 0;
+            lotes++;
+            total += linhas;
+            log.info("Status {}: lote {} (ids {}..{}) com {} conta(s) alterada(s) em {} ms",
+                transicao, lotes, ids.get(0), ids.get(ids.size() - 1), linhas, System.currentTimeMillis() - inicioLote);
+            
+            if (ids.size() < tamanhoLote) {
+                break;
+            }
+            aposId = ids.get(ids.size() - 1);
+        }
+        
+        if (lotes > 0) {
+            log.info("Status {}: total de {} conta(s) alterada(s) em {} lote(s), {} ms",
+                transicao, total, lotes, System.currentTimeMillis() - inicio);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Usuario;
+import lombok.Value;
+
+/**
+ * Publicado em toda escrita de usuário (cadastro, atualização, remoção)
+ * para manter os índices em memória sincronizados com a tabela usuarios.
+ */
+@Value
+public class UsuarioAlteradoEvent {
+    
+    public enum Tipo { CRIADO, ATUALIZADO, REMOVIDO }
+    
+    Tipo tipo;
+    Long usuarioId;
+    String nome;
+    String email;
+    String emailAnterior; // Preenchido apenas quando o email mudou
+    
+    public static UsuarioAlteradoEvent criado(Usuario usuario) {
+        return new UsuarioAlteradoEvent(Tipo.CRIADO, usuario.getId(), usuario.getNome(), usuario.getEmail(), null);
+    }
+    
+    public static UsuarioAlteradoEvent atualizado(Usuario usuario, String emailAnterior) {
+        String anterior = emailAnterior != null && !emailAnterior.equals(usuario.getEmail()) ? emailAnterior : null;
+        return new UsuarioAlteradoEvent(Tipo.ATUALIZADO, usuario.getId(), usuario.getNome(), usuario.getEmail(), anterior);
+    }
+    
+    public static UsuarioAlteradoEvent removido(Usuario usuario) {
+        return new UsuarioAlteradoEvent(Tipo.REMOVIDO, usuario.getId(), usuario.getNome(), usuario.getEmail(), null);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.PaginaCursorDTO;
+import com.example.demo.dto.ResultadoBuscaUsuarioDTO;
 import com.example.demo.dto.SaldoContatoDTO;
 import com.example.demo.dto.SaldoUsuarioDTO;
 import com.example.demo.dto.UsuarioDTO;
@@ -7,33 +9,59 @@ import com.example.demo.dto.UsuarioDTO;
 // import com.example.demo.dto.LoginRequest;
 import com.example.demo.exception.NegocioException;
 import com.example.demo.exception.RecursoNaoEncontradoException;
-import com.example.demo.model.Divisao;
+import com.example.demo.model.Dinheiro;
+import com.example.demo.model.SaldoPar;
 import com.example.demo.model.Usuario;
-import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.AmizadeRepository;
 import com.example.demo.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UsuarioService {
     
+    private static final int LIMITE_MAXIMO_PAGINA = 500;
+    private static final int LIMITE_MAXIMO_BUSCA = 50;
+    
     private final UsuarioRepository usuarioRepository;
-    private final DivisaoRepository divisaoRepository;
+    private final SaldoParService saldoParService;
     private final PasswordEncoder passwordEncoder;
+    private final CarregadorUsuarios carregadorUsuarios;
+    private final IndiceEmails indiceEmails;
+    private final IndiceBuscaUsuarios indiceBuscaUsuarios;
+    private final AmizadeRepository amizadeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     @Transactional
     public UsuarioDTO criarUsuario(UsuarioDTO usuarioDTO) {
-        if (usuarioRepository.existsByEmail(usuarioDTO.getEmail())) {
+        if (emailCadastrado(usuarioDTO.getEmail())) {
             throw new NegocioException("Email já cadastrado");
         }
         
@@ -43,7 +71,8 @@ public class UsuarioService {
             .chavePix(usuarioDTO.getChavePix())
             .build();
         
-        Usuario usuarioSalvo = usuarioRepository.save(usuario);
+        Usuario usuarioSalvo = salvarComEmailUnico(usuario);
+        eventPublisher.publishEvent(UsuarioAlteradoEvent.criado(usuarioSalvo));
         return converterParaDTO(usuarioSalvo);
     }
     
@@ -68,14 +97,70 @@ public class UsuarioService {
             .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<UsuarioDTO> listarPagina(Long aposId, int limite) {
+        int tamanho = PaginaCursorDTO.tamanho(limite, LIMITE_MAXIMO_PAGINA);
+        
+        // Busca um item a mais só para saber se existe próxima página
+        List<UsuarioDTO> itens = usuarioRepository.findPaginaAposId(
+            aposId != null ? aposId : 0L, Limit.of(tamanho + 1));
+        return PaginaCursorDTO.de(itens, tamanho, UsuarioDTO::getId);
+    }
+    
+    /**
+     * Escreve todos os usuários em NDJSON (um JSON por linha) com memória constante:
+     * a leitura é em streaming e cada entidade é desanexada depois de escrita.
+     */
+    @Transactional(readOnly = true)
+    public long exportarNdjson(OutputStream saida) throws IOException {
+        long total = 0;
+        try (Stream<Usuario> usuarios = usuarioRepository.streamTodosOrdenadosPorId()) {
+            Iterator<Usuario> iterator = usuarios.iterator();
+            while (iterator.hasNext()) {
+                Usuario usuario = iterator.next();
+                saida.write(objectMapper.writeValueAsBytes(converterParaDTO(usuario)));
+                saida.write('\n');
+                entityManager.detach(usuario);
+                total++;
+            }
+        }
+        saida.flush();
+        return total;
+    }
+    
+    /**
+     * Autocomplete por nome ou email, respondido pelo índice em memória.
+     * Amigos do usuário que busca aparecem primeiro; ele próprio não aparece.
+     */
+    @Transactional(readOnly = true)
+    public List<ResultadoBuscaUsuarioDTO> buscarUsuarios(Long usuarioId, String consulta, int limite) {
+        if (consulta == null || consulta.isBlank()) {
+            return List.of();
+        }
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_BUSCA));
+        Set<Long> amigos = usuarioId != null
+            ? new HashSet<>(amizadeRepository.findIdsAmigos(usuarioId))
+            : Set.of();
+        
+        return indiceBuscaUsuarios.buscar(consulta, amigos, usuarioId, tamanho).stream()
+            .map(doc -> ResultadoBuscaUsuarioDTO.builder()
+                .id(doc.id)
+                .nome(doc.nome)
+                .email(doc.email)
+                .amigo(amigos.contains(doc.id))
+                .build())
+            .collect(Collectors.toList());
+    }
+    
     @Transactional
     public UsuarioDTO atualizarUsuario(Long id, UsuarioDTO usuarioDTO) {
         Usuario usuario = usuarioRepository.findById(id)
             .orElseThrow(() -> new RecursoNaoEncontradoException("Usuário", id));
         
         // Verifica se o email mudou e se já existe outro usuário com esse email
+        String emailAnterior = usuario.getEmail();
         if (!usuario.getEmail().equals(usuarioDTO.getEmail()) && 
-            usuarioRepository.existsByEmail(usuarioDTO.getEmail())) {
+            emailCadastrado(usuarioDTO.getEmail())) {
             throw new NegocioException("Email já cadastrado");
         }
         
@@ -83,38 +168,99 @@ public class UsuarioService {
         usuario.setEmail(usuarioDTO.getEmail());
         usuario.setChavePix(usuarioDTO.getChavePix());
         
-        Usuario usuarioAtualizado = usuarioRepository.save(usuario);
+        Usuario usuarioAtualizado = salvarComEmailUnico(usuario);
+        carregadorUsuarios.esquecer(id);
+        eventPublisher.publishEvent(UsuarioAlteradoEvent.atualizado(usuarioAtualizado, emailAnterior));
         return converterParaDTO(usuarioAtualizado);
     }
     
     @Transactional
     public void deletarUsuario(Long id) {
-        if (!usuarioRepository.existsById(id)) {
-            throw new RecursoNaoEncontradoException("Usuário", id);
-        }
-        usuarioRepository.deleteById(id);
+        Usuario usuario = usuarioRepository.findById(id)
+            .orElseThrow(() -> new RecursoNaoEncontradoException("Usuário", id));
+        usuarioRepository.delete(usuario);
+        saldoParService.removerUsuario(id);
+        carregadorUsuarios.esquecer(id);
+        eventPublisher.publishEvent(UsuarioAlteradoEvent.removido(usuario));
     }
     
     // Método auxiliar para encontrar usuário por ID (para uso interno)
+    // Memorizado por requisição: chamadas repetidas com o mesmo id não voltam ao banco
     public Usuario encontrarUsuarioPorId(Long id) {
-        return usuarioRepository.findById(id)
-            .orElseThrow(() -> new RecursoNaoEncontradoException("Usuário", id));
+        return carregadorUsuarios.buscar(id);
+    }
+    
+    // Id do usuário com este email; "não cadastrado" normalmente é respondido sem ir ao banco.
+    // O índice é por instância e pode estar atrasado em relação a cadastros/trocas de email feitos
+    // em outra: serve para checagens prévias, não para decidir acesso (ver encontrarPorEmail)
+    public Optional<Long> encontrarIdPorEmail(String email) {
+        return indiceEmails.buscarId(email);
+    }
+    
+    // Sempre no banco: login e aceite de convite não podem depender do índice em memória
+    public Optional<Usuario> encontrarPorEmail(String email) {
+        return usuarioRepository.findByEmail(email);
+    }
+    
+    // Cadastro e troca de email: confirmado no banco (não no cache do índice), para não recusar
+    // um email que acabou de ser liberado por remoção ou troca
+    public boolean emailCadastrado(String email) {
+        return indiceEmails.existeNoBanco(email);
+    }
+    
+    /**
+     * Salva garantindo a unicidade do email pela constraint do banco
+     * (o índice em memória pode não ter visto um cadastro concorrente).
+     */
+    public Usuario salvarComEmailUnico(Usuario usuario) {
+        try {
+            return usuarioRepository.saveAndFlush(usuario);
+        } catch (DataIntegrityViolationException e) {
+            throw new NegocioException("Email já cadastrado");
+        }
+    }
+    
+    // Busca vários usuários com uma única consulta (IN), na ordem dos ids informados
+    public Map<Long, Usuario> encontrarUsuariosPorIds(Collection<Long> ids) {
+        return carregadorUsuarios.buscarTodos(ids);
     }
     
     // RF03: Calcular saldos consolidados do usuário
+    // Lidos do livro de saldos (uma linha por contato) + uma consulta para os nomes dos contatos
     @Transactional(readOnly = true)
     public SaldoUsuarioDTO calcularSaldosUsuario(Long usuarioId) {
         Usuario usuario = encontrarUsuarioPorId(usuarioId);
         
-        // Buscar todas as divisões relacionadas ao usuário
-        List<Divisao> divisoesComoDividente = divisaoRepository.findByUsuarioIdAndPago(usuarioId, false);
-        List<Divisao> divisoesComoCriador = divisaoRepository.findByContaCriadorIdAndPago(usuarioId, false);
+        List<SaldoPar> pares = saldoParService.listarAbertos(usuarioId);
         
-        BigDecimal totalDevendo = calcularTotalDevendo(divisoesComoDividente);
-        BigDecimal totalRecebendo = calcularTotalRecebendo(divisoesComoCriador, usuarioId);
-        BigDecimal saldoLiquido = totalRecebendo.subtract(totalDevendo);
+        Set<Long> contatoIds = new HashSet<>();
+        for (SaldoPar par : pares) {
+            contatoIds.add(par.outroUsuario(usuarioId));
+        }
+        Map<Long, UsuarioDTO> contatos = contatoIds.isEmpty()
+            ? Map.of()
+            : usuarioRepository.findResumosPorIds(contatoIds).stream()
+                .collect(Collectors.toMap(UsuarioDTO::getId, u -> u));
         
-        List<SaldoContatoDTO> saldosContatos = calcularSaldosContatos(usuarioId);
+        List<SaldoContatoDTO> saldosContatos = consolidarSaldosContatos(usuarioId, pares, contatos);
+        
+        // Totais a partir do saldo líquido com cada contato (divisões e dívidas), somados em centavos
+        long centavosDevendo = 0;
+        long centavosRecebendo = 0;
+        for (SaldoPar par : pares) {
+            long centavos = Dinheiro.centavos(par.getValor());
+            if (!usuarioId.equals(par.getUsuarioAId())) {
+                centavos = -centavos; // Livro guarda o saldo do ponto de vista do usuário A
+            }
+            if (centavos > 0) {
+                centavosRecebendo += centavos;
+            } else {
+                centavosDevendo -= centavos;
+            }
+        }
+        BigDecimal totalDevendo = Dinheiro.paraBigDecimal(centavosDevendo);
+        BigDecimal totalRecebendo = Dinheiro.paraBigDecimal(centavosRecebendo);
+        BigDecimal saldoLiquido = Dinheiro.paraBigDecimal(centavosRecebendo - centavosDevendo);
         
         return new SaldoUsuarioDTO(
             usuarioId,
@@ -130,75 +276,33 @@ public class UsuarioService {
     @Transactional(readOnly = true)
     public BigDecimal calcularSaldoComUsuario(Long usuarioId, Long outroUsuarioId) {
         // Verifica se os usuários existem
-        encontrarUsuarioPorId(usuarioId);
-        encontrarUsuarioPorId(outroUsuarioId);
+        encontrarUsuariosPorIds(List.of(usuarioId, outroUsuarioId));
         
-        // Quanto o outroUsuario deve para mim (divisões das minhas contas)
-        List<Divisao> outroDeveParaMim = divisaoRepository
-            .findByContaCriadorIdAndUsuarioIdAndPago(usuarioId, outroUsuarioId, false);
-        BigDecimal totalOutroDeveParaMim = outroDeveParaMim.stream()
-            .map(Divisao::getValor)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-        // Quanto eu devo para o outroUsuario (divisões das contas dele)
-        List<Divisao> euDevoParaOutro = divisaoRepository
-            .findByContaCriadorIdAndUsuarioIdAndPago(outroUsuarioId, usuarioId, false);
-        BigDecimal totalEuDevoParaOutro = euDevoParaOutro.stream()
-            .map(Divisao::getValor)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
         // Saldo líquido: positivo = ele me deve, negativo = eu devo para ele
-        return totalOutroDeveParaMim.subtract(totalEuDevoParaOutro);
+        return saldoParService.saldoEntre(usuarioId, outroUsuarioId);
     }
     
-    private BigDecimal calcularTotalDevendo(List<Divisao> divisoes) {
-        return divisoes.stream()
-            .map(Divisao::getValor)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-    
-    private BigDecimal calcularTotalRecebendo(List<Divisao> divisoesComoCriador, Long usuarioId) {
-        // Somar valores das divisões de contas que eu criei (onde outros me devem)
-        return divisoesComoCriador.stream()
-            .filter(d -> !d.getUsuario().getId().equals(usuarioId)) // Excluir minhas próprias divisões
-            .map(Divisao::getValor)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-    
-    private List<SaldoContatoDTO> calcularSaldosContatos(Long usuarioId) {
-        Map<Long, SaldoContatoDTO> saldosMap = new HashMap<>();
+    /**
+     * Monta o saldo por contato a partir das linhas do livro de saldos.
+     * Público para ser medido pelos benchmarks.
+     */
+    public static List<SaldoContatoDTO> consolidarSaldosContatos(Long usuarioId,
+                                                                 List<SaldoPar> pares,
+                                                                 Map<Long, UsuarioDTO> contatos) {
+        List<SaldoContatoDTO> saldos = new ArrayList<>(pares.size());
         
-        // Processar divisões onde eu devo para outros
-        List<Divisao> divisoesComoDividente = divisaoRepository.findByUsuarioIdAndPago(usuarioId, false);
-        for (Divisao divisao : divisoesComoDividente) {
-            Long criadorId = divisao.getConta().getCriador().getId();
-            if (!criadorId.equals(usuarioId)) {
-                saldosMap.computeIfAbsent(criadorId, id -> {
-                    Usuario criador = divisao.getConta().getCriador();
-                    return new SaldoContatoDTO(id, criador.getNome(), criador.getEmail(), BigDecimal.ZERO, 0);
-                });
-                SaldoContatoDTO saldo = saldosMap.get(criadorId);
-                saldo.setSaldoComEsteUsuario(saldo.getSaldoComEsteUsuario().subtract(divisao.getValor())); // Negativo = eu devo
-                saldo.setQuantidadeContasAbertas(saldo.getQuantidadeContasAbertas() + 1);
-            }
-        }
-        
-        // Processar divisões onde outros me devem
-        List<Divisao> divisoesComoCriador = divisaoRepository.findByContaCriadorIdAndPago(usuarioId, false);
-        for (Divisao divisao : divisoesComoCriador) {
-            Long dividenteId = divisao.getUsuario().getId();
-            if (!dividenteId.equals(usuarioId)) {
-                saldosMap.computeIfAbsent(dividenteId, id -> {
-                    Usuario dividende = divisao.getUsuario();
-                    return new SaldoContatoDTO(id, dividende.getNome(), dividende.getEmail(), BigDecimal.ZERO, 0);
-                });
-                SaldoContatoDTO saldo = saldosMap.get(dividenteId);
-                saldo.setSaldoComEsteUsuario(saldo.getSaldoComEsteUsuario().add(divisao.getValor())); // Positivo = ele me deve
-                saldo.setQuantidadeContasAbertas(saldo.getQuantidadeContasAbertas() + 1);
-            }
+        for (SaldoPar par : pares) {
+            Long contatoId = par.outroUsuario(usuarioId);
+            UsuarioDTO contato = contatos.get(contatoId);
+            // Positivo = ele me deve, Negativo = eu devo
+            saldos.add(new SaldoContatoDTO(contatoId,
+                contato != null ? contato.getNome() : null,
+                contato != null ? contato.getEmail() : null,
+                par.saldoPara(usuarioId),
+                par.getAbertas()));
         }
         
-        return new ArrayList<>(saldosMap.values());
+        return saldos;
     }
     
     private UsuarioDTO converterParaDTO(Usuario usuario) {
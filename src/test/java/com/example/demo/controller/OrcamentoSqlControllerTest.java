@@ -0,0 +1,191 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Conta;
+import com.example.demo.model.Divisao;
+import com.example.demo.model.Grupo;
+import com.example.demo.model.SaldoPar;
+import com.example.demo.model.Usuario;
+import com.example.demo.repository.ContaRepository;
+import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.GrupoRepository;
+import com.example.demo.repository.SaldoParRepository;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.JwtService;
+import com.example.demo.support.ContagemSql;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Linha de base de instruções SQL por endpoint: a contagem não pode crescer com a quantidade de linhas
+ * retornadas. Cada teste mede com poucos registros, adiciona mais (com usuários distintos, para que
+ * um carregamento preguiçoso por linha apareça) e mede de novo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrcamentoSqlControllerTest {
+    
+    private static final int MAXIMO_POR_REQUISICAO = 5;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    
+    @Autowired
+    private ContaRepository contaRepository;
+    
+    @Autowired
+    private DivisaoRepository divisaoRepository;
+    
+    @Autowired
+    private GrupoRepository grupoRepository;
+    
+    @Autowired
+    private SaldoParRepository saldoParRepository;
+    
+    private Usuario usuario;
+    private String token;
+    
+    @BeforeEach
+    void setUp() {
+        usuario = novoUsuario();
+        token = "Bearer " + jwtService.generateToken(usuario.getId(), usuario.getEmail());
+    }
+    
+    @Test
+    void contasDoUsuarioNaoCrescemComAsLinhas() throws Exception {
+        criarContasComParticipacao(2);
+        int poucas = medir("/api/contas/usuario/" + usuario.getId());
+        
+        criarContasComParticipacao(20);
+        int muitas = medir("/api/contas/usuario/" + usuario.getId());
+        
+        assertThat(muitas).isEqualTo(poucas);
+    }
+    
+    @Test
+    void paginaDoGrupoNaoCresceComAsLinhas() throws Exception {
+        Grupo grupo = grupoRepository.save(Grupo.builder()
+            .nome("Grupo " + UUID.randomUUID())
+            .criador(usuario)
+            .membros(new ArrayList<>())
+            .ativo(true)
+            .build());
+        
+        criarContasNoGrupo(grupo, 2);
+        int poucas = medir("/api/contas/grupo/" + grupo.getId() + "/pagina?limite=50");
+        
+        criarContasNoGrupo(grupo, 20);
+        int muitas = medir("/api/contas/grupo/" + grupo.getId() + "/pagina?limite=50");
+        
+        assertThat(muitas).isEqualTo(poucas);
+    }
+    
+    @Test
+    void saldosDoUsuarioNaoCrescemComOsContatos() throws Exception {
+        criarSaldos(2);
+        int poucos = medir("/api/usuarios/" + usuario.getId() + "/saldos");
+        
+        criarSaldos(20);
+        int muitos = medir("/api/usuarios/" + usuario.getId() + "/saldos");
+        
+        assertThat(muitos).isEqualTo(poucos);
+    }
+    
+    @Test
+    void paginaDeUsuariosNaoCresceComAsLinhas() throws Exception {
+        int pequena = medir("/api/usuarios/pagina?limite=2");
+        for (int i = 0; i < 20; i++) {
+            novoUsuario();
+        }
+        int grande = medir("/api/usuarios/pagina?limite=50");
+        
+        assertThat(grande).isEqualTo(pequena);
+    }
+    
+    @Test
+    void contagemVaiNoCabecalho() throws Exception {
+        mockMvc.perform(get("/api/usuarios/" + usuario.getId()).header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("X-Sql-Count"));
+    }
+    
+    private int medir(String url) throws Exception {
+        MvcResult resultado = mockMvc.perform(get(url).header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(ContagemSql.noMaximo(MAXIMO_POR_REQUISICAO))
+            .andReturn();
+        return ContagemSql.total(resultado);
+    }
+    
+    private Usuario novoUsuario() {
+        String sufixo = UUID.randomUUID().toString();
+        return usuarioRepository.save(Usuario.builder()
+            .nome("Usuário " + sufixo)
+            .email(sufixo + "@teste.com")
+            .build());
+    }
+    
+    // Cada conta tem um criador diferente e uma divisão para o usuário do teste
+    private void criarContasComParticipacao(int quantidade) {
+        List<Divisao> divisoes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Conta conta = contaRepository.save(novaConta(novoUsuario(), null));
+            divisoes.add(Divisao.builder()
+                .conta(conta)
+                .usuario(usuario)
+                .valor(new BigDecimal("10.00"))
+                .build());
+        }
+        divisaoRepository.saveAll(divisoes);
+    }
+    
+    private void criarContasNoGrupo(Grupo grupo, int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            contaRepository.save(novaConta(novoUsuario(), grupo));
+        }
+    }
+    
+    private Conta novaConta(Usuario criador, Grupo grupo) {
+        return Conta.builder()
+            .descricao("Conta de teste")
+            .valor(new BigDecimal("20.00"))
+            .vencimento(LocalDate.now().plusDays(10))
+            .criador(criador)
+            .grupo(grupo)
+            .build();
+    }
+    
+    private void criarSaldos(int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            Usuario contato = novoUsuario();
+            // O contato foi criado depois, então tem o id maior: valor positivo = contato deve ao usuário
+            saldoParRepository.save(SaldoPar.builder()
+                .usuarioAId(usuario.getId())
+                .usuarioBId(contato.getId())
+                .valor(new BigDecimal("15.00"))
+                .abertas(1)
+                .build());
+        }
+    }
+}
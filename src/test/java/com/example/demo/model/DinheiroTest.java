@@ -0,0 +1,79 @@
+package com.example.demo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Rateios em centavos: a soma das partes deve ser sempre exatamente o total.
+ */
+class DinheiroTest {
+    
+    @Test
+    void alocarIgualitarioDaOsCentavosQueSobramParaAsPrimeirasPartes() {
+        assertThat(Dinheiro.alocar(10000, 3)).containsExactly(3334, 3333, 3333);
+        assertThat(Dinheiro.alocar(101, 4)).containsExactly(26, 25, 25, 25);
+    }
+    
+    @Test
+    void alocarIgualitarioComTotalNegativoMantemOSinal() {
+        assertThat(Dinheiro.alocar(-100, 3)).containsExactly(-34, -33, -33);
+    }
+    
+    @Test
+    void alocarIgualitarioPreservaASoma() {
+        for (long total : new long[] {0, 1, 99, 100, 1001, 123457, -777}) {
+            for (int partes = 1; partes <= 12; partes++) {
+                assertThat(Arrays.stream(Dinheiro.alocar(total, partes)).sum())
+                    .as("total %d em %d partes", total, partes)
+                    .isEqualTo(total);
+            }
+        }
+    }
+    
+    @Test
+    void alocarProporcionalDaOsCentavosQueFaltamParaAsMaioresFracoes() {
+        // 1000 * 1/7 = 142,86 | 1000 * 2/7 = 285,71 | 1000 * 4/7 = 571,43:
+        // faltam 2 centavos, que vão para as duas maiores frações (0,86 e 0,71), não para o maior peso
+        assertThat(Dinheiro.alocar(1000, new long[] {1, 2, 4})).containsExactly(143, 286, 571);
+    }
+    
+    @Test
+    void alocarProporcionalDesempataPelaParteQueVemAntes() {
+        assertThat(Dinheiro.alocar(100, new long[] {1, 1, 1})).containsExactly(34, 33, 33);
+    }
+    
+    @Test
+    void alocarProporcionalPreservaASoma() {
+        Random random = new Random(42);
+        for (int rodada = 0; rodada < 500; rodada++) {
+            long total = random.nextInt(1_000_000) - 100_000;
+            long[] pesos = new long[1 + random.nextInt(10)];
+            for (int i = 0; i < pesos.length; i++) {
+                pesos[i] = random.nextInt(1_000_000);
+            }
+            pesos[0]++;
+            
+            assertThat(Arrays.stream(Dinheiro.alocar(total, pesos)).sum())
+                .as("total %d com pesos %s", total, Arrays.toString(pesos))
+                .isEqualTo(total);
+        }
+    }
+    
+    @Test
+    void alocarComUmaParteSoDevolveOTotal() {
+        assertThat(Dinheiro.alocar(1001, 1)).containsExactly(1001);
+        assertThat(Dinheiro.alocar(1001, new long[] {7})).containsExactly(1001);
+    }
+    
+    @Test
+    void alocarRejeitaPartesEPesosInvalidos() {
+        assertThatThrownBy(() -> Dinheiro.alocar(100, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Dinheiro.alocar(100, new long[] {0, 0})).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Dinheiro.alocar(100, new long[] {2, -1})).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.TotalPorPar;
+import com.example.demo.service.AcertoGrupoService.Transferencia;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plano de transferências do acerto do grupo (parte pura, sem banco).
+ */
+class AcertoGrupoServiceTest {
+    
+    @Test
+    void semPosicoesNaoHaTransferencias() {
+        assertThat(AcertoGrupoService.planejar(Map.of())).isEmpty();
+        assertThat(AcertoGrupoService.planejar(Map.of(1L, 0L, 2L, 0L))).isEmpty();
+    }
+    
+    @Test
+    void maiorDevedorPagaPrimeiroAoMaiorCredor() {
+        List<Transferencia> plano = AcertoGrupoService.planejar(Map.of(1L, 3000L, 2L, -1000L, 3L, -2000L));
+        
+        assertThat(plano).containsExactly(
+            new Transferencia(3L, 1L, 2000L),
+            new Transferencia(2L, 1L, 1000L));
+    }
+    
+    @Test
+    void empateEntrePosicoesIguaisSaiPeloMenorId() {
+        List<Transferencia> plano = AcertoGrupoService.planejar(Map.of(2L, 500L, 1L, 500L, 4L, -500L, 3L, -500L));
+        
+        assertThat(plano).containsExactly(
+            new Transferencia(3L, 1L, 500L),
+            new Transferencia(4L, 2L, 500L));
+    }
+    
+    @Test
+    void planoZeraTodasAsPosicoesComNoMaximoParticipantesMenosUmaTransferencia() {
+        Map<Long, Long> posicoes = Map.of(1L, 4321L, 2L, -1234L, 3L, 999L, 4L, -3000L, 5L, -1086L);
+        
+        List<Transferencia> plano = AcertoGrupoService.planejar(posicoes);
+        
+        assertThat(plano).hasSizeLessThanOrEqualTo(posicoes.size() - 1);
+        Map<Long, Long> restantes = new HashMap<>(posicoes);
+        for (Transferencia t : plano) {
+            assertThat(t.centavos()).isPositive();
+            restantes.merge(t.deUsuarioId(), t.centavos(), Long::sum);
+            restantes.merge(t.paraUsuarioId(), -t.centavos(), Long::sum);
+        }
+        assertThat(restantes.values()).containsOnly(0L);
+    }
+    
+    @Test
+    void posicoesLiquidasCompensamOsDoisSentidosDoPar() {
+        Map<Long, Long> posicoes = AcertoGrupoService.posicoesLiquidas(List.of(
+            total(2L, 1L, "10.00"),
+            total(1L, 2L, "4.00"),
+            total(3L, 1L, "5.005")));
+        
+        assertThat(posicoes).containsOnly(
+            Map.entry(1L, 1101L),
+            Map.entry(2L, -600L),
+            Map.entry(3L, -501L));
+        assertThat(AcertoGrupoService.planejar(posicoes)).containsExactly(
+            new Transferencia(2L, 1L, 600L),
+            new Transferencia(3L, 1L, 501L));
+    }
+    
+    private static TotalPorPar total(Long devedorId, Long credorId, String valor) {
+        return new TotalPorPar() {
+            @Override
+            public Long getDevedorId() {
+                return devedorId;
+            }
+            
+            @Override
+            public Long getCredorId() {
+                return credorId;
+            }
+            
+            @Override
+            public BigDecimal getTotal() {
+                return new BigDecimal(valor);
+            }
+            
+            @Override
+            public Long getQuantidade() {
+                return 1L;
+            }
+        };
+    }
+}
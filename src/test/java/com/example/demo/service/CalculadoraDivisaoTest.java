@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CalculadoraDivisaoTest {
+    
+    @Test
+    void valoresIguaisDistribuemOsCentavosQueSobram() {
+        List<BigDecimal> valores = CalculadoraDivisao.valoresIguais(new BigDecimal("100.00"), 3);
+        
+        assertThat(valores).containsExactly(new BigDecimal("33.34"), new BigDecimal("33.33"), new BigDecimal("33.33"));
+        assertThat(CalculadoraDivisao.somaConfere(new BigDecimal("100.00"), valores)).isTrue();
+    }
+    
+    @Test
+    void valoresPorPercentualPreservamOTotal() {
+        BigDecimal total = new BigDecimal("99.99");
+        List<BigDecimal> valores = CalculadoraDivisao.valoresPorPercentual(total,
+            List.of(new BigDecimal("0.15"), new BigDecimal("0.35"), new BigDecimal("0.5")));
+        
+        assertThat(valores).containsExactly(new BigDecimal("15.00"), new BigDecimal("35.00"), new BigDecimal("49.99"));
+        assertThat(CalculadoraDivisao.somar(valores)).isEqualByComparingTo(total);
+    }
+    
+    @Test
+    void valoresPorPercentualTruncamOsPercentuaisEmSeisCasas() {
+        // Depois de truncar em 6 casas os três percentuais viram 0.333333 (pesos iguais),
+        // então o centavo que sobra vai para a primeira parte e não para a de 0.3333339
+        List<BigDecimal> valores = CalculadoraDivisao.valoresPorPercentual(new BigDecimal("1.00"),
+            List.of(new BigDecimal("0.3333330"), new BigDecimal("0.3333339"), new BigDecimal("0.3333331")));
+        
+        assertThat(valores).containsExactly(new BigDecimal("0.34"), new BigDecimal("0.33"), new BigDecimal("0.33"));
+    }
+    
+    @Test
+    void participanteUnicoFicaComOValorInteiro() {
+        BigDecimal total = new BigDecimal("10.01");
+        
+        assertThat(CalculadoraDivisao.valoresIguais(total, 1)).containsExactly(total);
+        assertThat(CalculadoraDivisao.valoresPorPercentual(total, List.of(BigDecimal.ONE))).containsExactly(total);
+    }
+    
+    @Test
+    void somaConfereExigeOValorExatoDaConta() {
+        BigDecimal total = new BigDecimal("50.00");
+        
+        assertThat(CalculadoraDivisao.somaConfere(total, List.of(new BigDecimal("25.00"), new BigDecimal("25")))).isTrue();
+        assertThat(CalculadoraDivisao.somaConfere(total, List.of(new BigDecimal("25.00"), new BigDecimal("24.99")))).isFalse();
+    }
+}
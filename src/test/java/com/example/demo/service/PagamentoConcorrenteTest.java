@@ -0,0 +1,164 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.NegocioException;
+import com.example.demo.model.Conta;
+import com.example.demo.model.Divisao;
+import com.example.demo.model.StatusConta;
+import com.example.demo.model.Usuario;
+import com.example.demo.repository.ContaRepository;
+import com.example.demo.repository.DivisaoRepository;
+import com.example.demo.repository.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Teste de carga dos pagamentos concorrentes: várias threads pagam ao mesmo tempo as divisões
+ * de uma única conta, cada divisão duas vezes. Cada divisão deve ser paga exatamente uma vez,
+ * a conta deve terminar quitada e o livro de saldos zerado para todos os pares.
+ */
+@Slf4j
+// Conflitos de versão são esperados aqui; o Hibernate registra cada lote rejeitado como ERROR (HHH100501)
+@SpringBootTest(properties = {"concorrencia.tentativas=30", "concorrencia.espera-base-ms=5",
+    "logging.level.org.hibernate.orm.jdbc.batch=OFF"})
+class PagamentoConcorrenteTest {
+    
+    private static final int PARTICIPANTES = 20;
+    private static final int TENTATIVAS_POR_DIVISAO = 2;
+    private static final int THREADS = 16;
+    private static final BigDecimal VALOR_DIVISAO = new BigDecimal("5.00");
+    
+    @Autowired
+    private DivisaoService divisaoService;
+    
+    @Autowired
+    private SaldoParService saldoParService;
+    
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    
+    @Autowired
+    private ContaRepository contaRepository;
+    
+    @Autowired
+    private DivisaoRepository divisaoRepository;
+    
+    @Autowired
+    private RetentativaOtimista retentativaOtimista;
+    
+    @Test
+    void divisoesDaMesmaContaPagasEmParalelo() throws Exception {
+        Usuario criador = novoUsuario();
+        Conta conta = contaRepository.save(Conta.builder()
+            .descricao("Conta concorrida")
+            .valor(VALOR_DIVISAO.multiply(BigDecimal.valueOf(PARTICIPANTES)))
+            .vencimento(LocalDate.now().plusDays(10))
+            .criador(criador)
+            .build());
+        
+        List<Divisao> divisoes = new ArrayList<>(PARTICIPANTES);
+        for (int i = 0; i < PARTICIPANTES; i++) {
+            divisoes.add(divisaoService.salvarDivisao(Divisao.builder()
+                .conta(conta)
+                .usuario(novoUsuario())
+                .valor(VALOR_DIVISAO)
+                .build()));
+        }
+        assertThat(saldoParService.saldoEntre(criador.getId(), divisoes.get(0).getUsuario().getId()))
+            .isEqualByComparingTo(VALOR_DIVISAO);
+        
+        Map<Long, AtomicInteger> pagamentos = new ConcurrentHashMap<>();
+        AtomicInteger rejeitados = new AtomicInteger();
+        Queue<Throwable> inesperados = new ConcurrentLinkedQueue<>();
+        CountDownLatch largada = new CountDownLatch(1);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int tentativa = 0; tentativa < TENTATIVAS_POR_DIVISAO; tentativa++) {
+            for (Divisao divisao : divisoes) {
+                tarefas.add(executor.submit(() -> {
+                    try {
+                        largada.await();
+                        divisaoService.marcarDivisaoComoPaga(divisao.getId());
+                        pagamentos.computeIfAbsent(divisao.getId(), id -> new AtomicInteger()).incrementAndGet();
+                    } catch (NegocioException e) {
+                        // Pagamento repetido: a outra tentativa já quitou a divisão
+                        rejeitados.incrementAndGet();
+                    } catch (Throwable e) {
+                        inesperados.add(e);
+                    }
+                    return null;
+                }));
+            }
+        }
+        
+        long conflitosAntes = contador("conflitos");
+        long esgotadasAntes = contador("esgotadas");
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(60, TimeUnit.SECONDS);
+        }
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        executor.shutdown();
+        
+        int operacoes = PARTICIPANTES * TENTATIVAS_POR_DIVISAO;
+        log.info("{} pagamento(s) concorrentes em {} ms ({} op/s)",
+            operacoes, duracaoMs, operacoes * 1000L / Math.max(1, duracaoMs));
+        
+        assertThat(inesperados).isEmpty();
+        assertThat(pagamentos).hasSize(PARTICIPANTES);
+        assertThat(pagamentos.values()).allSatisfy(vezes -> assertThat(vezes.get()).isEqualTo(1));
+        assertThat(rejeitados.get()).isEqualTo(operacoes - PARTICIPANTES);
+        
+        assertThat(divisaoRepository.findAllById(pagamentos.keySet()))
+            .allSatisfy(divisao -> assertThat(divisao.getPago()).isTrue());
+        Conta quitada = contaRepository.findById(conta.getId()).orElseThrow();
+        assertThat(quitada.getPaga()).isTrue();
+        assertThat(quitada.getStatus()).isEqualTo(StatusConta.PAGA);
+        assertThat(quitada.getDivisoesPendentes()).isZero();
+        assertThat(quitada.getValorPago()).isEqualByComparingTo(quitada.getValor());
+        for (Divisao divisao : divisoes) {
+            assertThat(saldoParService.saldoEntre(criador.getId(), divisao.getUsuario().getId()))
+                .isEqualByComparingTo(BigDecimal.ZERO);
+        }
+        
+        // Nenhum pagamento esgotou as tentativas, e as retentativas não entraram em cascata
+        // (mais de duas por pagamento, em média, indicaria travas fora de ordem)
+        long conflitos = contador("conflitos") - conflitosAntes;
+        log.info("{} conflito(s) de concorrência refeitos", conflitos);
+        assertThat(contador("esgotadas") - esgotadasAntes).isZero();
+        assertThat(conflitos).isLessThanOrEqualTo(2L * operacoes);
+    }
+    
+    private long contador(String nome) {
+        return ((Number) retentativaOtimista.estatisticas().get(nome)).longValue();
+    }
+    
+    private Usuario novoUsuario() {
+        String sufixo = UUID.randomUUID().toString();
+        return usuarioRepository.save(Usuario.builder()
+            .nome("Usuário " + sufixo)
+            .email(sufixo + "@teste.com")
+            .build());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.support;
+
+import com.example.demo.config.ContadorSql;
+import com.example.demo.config.OrcamentoSqlFilter;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asserções sobre a quantidade de instruções SQL, para pegar N+1 nos testes.
+ *
+ * <pre>
+ * mockMvc.perform(get("/api/contas/usuario/1"))
+ *     .andExpect(status().isOk())
+ *     .andExpect(ContagemSql.noMaximo(3));
+ * </pre>
+ */
+public final class ContagemSql {
+    
+    private ContagemSql() {
+    }
+    
+    /**
+     * Falha se a requisição executou mais de {@code maximo} instruções SQL
+     * (contadas pelo OrcamentoSqlFilter).
+     */
+    public static ResultMatcher noMaximo(int maximo) {
+        return resultado -> assertThat(total(resultado))
+            .as("instruções SQL em %s %s", resultado.getRequest().getMethod(), resultado.getRequest().getRequestURI())
+            .isLessThanOrEqualTo(maximo);
+    }
+    
+    public static int total(MvcResult resultado) {
+        Object total = resultado.getRequest().getAttribute(OrcamentoSqlFilter.ATRIBUTO_TOTAL);
+        assertThat(total).as("contagem de SQL ausente (OrcamentoSqlFilter não rodou?)").isNotNull();
+        return (Integer) total;
+    }
+    
+    /**
+     * Conta as instruções SQL executadas pelo bloco na thread atual (fora de requisições HTTP).
+     */
+    public static int contar(Runnable bloco) {
+        ContadorSql.iniciar();
+        try {
+            bloco.run();
+            return ContadorSql.total();
+        } finally {
+            ContadorSql.encerrar();
+        }
+    }
+}